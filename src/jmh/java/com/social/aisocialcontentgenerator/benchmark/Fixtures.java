@@ -0,0 +1,50 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+
+/**
+ * Inputs shared by the benchmarks, sized like real requests and model answers.
+ */
+final class Fixtures {
+
+    static final String MODEL_JSON = """
+            {
+              "captions": [
+                "Sweat now, shine later 💪",
+                "Leg day is the best day. Fight me.",
+                "Your only competition is who you were yesterday.",
+                "Protein shake in one hand, goals in the other.",
+                "Small steps every day add up to big results."
+              ],
+              "hashtags": ["#fitness", "#gym", "#legday", "#homeworkout", "#protein", "#motivation", "#fitfam", "#health"],
+              "ideas": [
+                {"title": "Before / after", "description": "Show 12 weeks of progress side by side", "imageIdea": "Split photo"},
+                {"title": "5-minute warm-up", "description": "A quick routine anyone can do at home", "imageIdea": "Short reel"},
+                {"title": "Meal prep Sunday", "description": "High-protein lunches for the week", "imageIdea": "Flat lay of boxes"}
+              ]
+            }""";
+
+    static final String MODEL_PLAIN_TEXT = """
+            Here are some captions for your fitness brand:
+            - Sweat now, shine later 💪 #fitness
+            - Leg day is the best day. Fight me. #legday
+            - Your only competition is who you were yesterday.
+            - Protein shake in one hand, goals in the other. #protein
+            - Small steps every day add up to big results.
+            #fitness #gym #legday #homeworkout #protein #motivation #fitfam #health
+            Idea: Before / after - show 12 weeks of progress side by side
+            Idea: 5-minute warm-up - a quick routine anyone can do at home
+            Idea: Meal prep Sunday - high-protein lunches for the week
+            """;
+
+    private Fixtures() {
+    }
+
+    static GenerateRequest request(String platform, String industry, String keywords) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform(platform);
+        req.setIndustry(industry);
+        req.setKeywords(keywords);
+        return req;
+    }
+}
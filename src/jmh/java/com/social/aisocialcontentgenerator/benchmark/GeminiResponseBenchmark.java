@@ -0,0 +1,72 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.util.GeminiResponseExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the model text out of a generateContent response body:
+ * - treeWalk: body as a String, readTree, walk to candidates[0].content.parts[0].text (the old way)
+ * - extractor: GeminiResponseExtractor over the raw bytes, as HttpGeminiService does now
+ * candidates=3 makes the body about ten times larger than the single-candidate answer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeminiResponseBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"1", "3"})
+    public int candidates;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        String text = MAPPER.writeValueAsString(Fixtures.MODEL_JSON);
+        StringBuilder sb = new StringBuilder("{\"candidates\":[");
+        for (int i = 0; i < candidates; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"content\":{\"parts\":[{\"text\":").append(text).append("}],\"role\":\"model\"},")
+                    .append("\"finishReason\":\"STOP\",\"index\":").append(i).append(",\"safetyRatings\":[");
+            // safety ratings and repeated parts are most of a multi-candidate body
+            for (int r = 0; r < 4 * candidates * candidates; r++) {
+                if (r > 0) sb.append(',');
+                sb.append("{\"category\":\"HARM_CATEGORY_").append(r).append("\",\"probability\":\"NEGLIGIBLE\"}");
+            }
+            sb.append("]}");
+        }
+        sb.append("],\"usageMetadata\":{\"promptTokenCount\":312,\"candidatesTokenCount\":187,\"totalTokenCount\":499},")
+                .append("\"modelVersion\":\"gemini-2.5-flash\"}");
+        body = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String treeWalk() throws IOException {
+        return MAPPER.readTree(new String(body, StandardCharsets.UTF_8))
+                .path("candidates").path(0).path("content").path("parts").path(0).path("text").asText();
+    }
+
+    @Benchmark
+    public String extractor() throws IOException {
+        return GeminiResponseExtractor.of(body).text();
+    }
+}
@@ -0,0 +1,96 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import com.social.aisocialcontentgenerator.service.GenerationCache;
+import com.social.aisocialcontentgenerator.service.GenerationCoalescer;
+import com.social.aisocialcontentgenerator.service.GenerationCostTracker;
+import com.social.aisocialcontentgenerator.service.GenerationHistoryWriter;
+import com.social.aisocialcontentgenerator.service.GenerationMetrics;
+import com.social.aisocialcontentgenerator.service.GenerationService;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import com.social.aisocialcontentgenerator.service.UsageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything generateForUser does around the model call, with an LLM that answers instantly:
+ * key, cache, single-flight, prompt, parse and history hand-off.
+ * - cache=miss: generation cache disabled, every call goes to the (stub) model
+ * - cache=hit: the same request again, served from the cache
+ * Usage and history are no-ops, so no database is involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationServiceBenchmark {
+
+    @Param({"miss", "hit"})
+    public String cache;
+
+    private GenerationService service;
+    private AuthPrincipal principal;
+    private GenerateRequest request;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LLMService stubLlm = new LLMService() {
+            @Override
+            public String callModel(String prompt, Long userId) {
+                return Fixtures.MODEL_JSON;
+            }
+
+            @Override
+            public Mono<String> callModelAsync(String prompt, Long userId) {
+                return Mono.just(Fixtures.MODEL_JSON);
+            }
+        };
+        GenerationHistoryWriter noHistory = new GenerationHistoryWriter(null, null, meterRegistry, 1, 1,
+                Duration.ofMillis(200), Duration.ofMillis(50)) {
+            @Override
+            public void enqueue(GenerationHistory history) {
+            }
+        };
+        UsageService unlimitedUsage = new UsageService(null) {
+            @Override
+            public void reserve(Long userId, int amount) {
+            }
+
+            @Override
+            public void refund(Long userId, int amount) {
+            }
+        };
+        service = new GenerationService(stubLlm, noHistory, unlimitedUsage,
+                new GenerationCache("hit".equals(cache), DataSize.ofMegabytes(16), Duration.ofHours(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry), Runnable::run, 50, 16, true);
+        principal = new AuthPrincipal(42L, "bench@example.com", Plan.PRO);
+        request = Fixtures.request("instagram", "fitness", "protein, leg day, home workout");
+    }
+
+    @Benchmark
+    public GenerateResponse generateForUser() {
+        return service.generateForUser(principal, request);
+    }
+}
@@ -0,0 +1,83 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.User;
+import com.social.aisocialcontentgenerator.util.JwtUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue (login / register) and verification as JwtAuthFilter does it on every request.
+ * - validate: one verification with the prebuilt parser, claims straight into the principal
+ * - legacyValidate: the filter's old path, validateToken then getSubjectFromToken (two verifications)
+ * - legacyValidateRebuiltParser: the same before JwtUtils kept its parser, when each call built one
+ * The old filter also loaded the user by email on every request; that DB round trip is not included.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark {
+
+    private static final String SECRET = "benchmark_secret_benchmark_secret_benchmark_secret";
+
+    private JwtUtils jwtUtils;
+    private Key signingKey;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000L);
+        jwtUtils.init();
+        // what init() derives from a 32+ byte, non-base64 secret
+        signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("bench@example.com");
+        user.setPlan(Plan.PRO);
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public AuthPrincipal validate() {
+        return jwtUtils.toPrincipal(jwtUtils.parseToken(token));
+    }
+
+    @Benchmark
+    public String legacyValidate() {
+        return jwtUtils.validateToken(token) ? jwtUtils.getSubjectFromToken(token) : null;
+    }
+
+    @Benchmark
+    public String legacyValidateRebuiltParser() {
+        Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token).getBody().getSubject();
+    }
+}
@@ -0,0 +1,42 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.util.PromptFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptFactoryBenchmark {
+
+    private GenerateRequest request;
+
+    @Setup
+    public void setUp() {
+        request = Fixtures.request("instagram", "fitness", "protein, leg day, home workout");
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return PromptFactory.buildPrompt(request);
+    }
+
+    @Benchmark
+    public String buildStructuredPrompt() {
+        return PromptFactory.buildStructuredPrompt(request);
+    }
+}
@@ -0,0 +1,60 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.util.PromptParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PromptParser.parse on the shapes models actually return:
+ * - clean: strict JSON as asked for
+ * - fenced: JSON in a ```json block
+ * - commentary: a sentence before and after the JSON
+ * - plain: no JSON at all, heuristic parser
+ * parseStructured is the structured-output path: direct binding for clean JSON, parse for the rest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptParserBenchmark {
+
+    @Param({"clean", "fenced", "commentary", "plain"})
+    public String shape;
+
+    private String modelText;
+
+    @Setup
+    public void setUp() {
+        modelText = switch (shape) {
+            case "clean" -> Fixtures.MODEL_JSON;
+            case "fenced" -> "```json\n" + Fixtures.MODEL_JSON + "\n```";
+            case "commentary" -> "Sure! Here is your content:\n" + Fixtures.MODEL_JSON + "\nLet me know if you want more.";
+            case "plain" -> Fixtures.MODEL_PLAIN_TEXT;
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @Benchmark
+    public GenerateResponse parse() {
+        return PromptParser.parse(modelText);
+    }
+
+    @Benchmark
+    public GenerateResponse parseStructured() {
+        return PromptParser.parseStructured(modelText);
+    }
+}
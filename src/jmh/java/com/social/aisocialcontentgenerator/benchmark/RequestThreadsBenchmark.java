@@ -0,0 +1,113 @@
+package com.social.aisocialcontentgenerator.benchmark;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import com.social.aisocialcontentgenerator.service.GenerationCache;
+import com.social.aisocialcontentgenerator.service.GenerationCoalescer;
+import com.social.aisocialcontentgenerator.service.GenerationCostTracker;
+import com.social.aisocialcontentgenerator.service.GenerationHistoryWriter;
+import com.social.aisocialcontentgenerator.service.GenerationMetrics;
+import com.social.aisocialcontentgenerator.service.GenerationService;
+import com.social.aisocialcontentgenerator.service.UsageService;
+import com.social.aisocialcontentgenerator.service.impl.StubLLMService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load harness for the virtual profile: blocking generateForUser calls against a stub LLM with a
+ * 200ms latency, one task per request, as Tomcat would run them. Score = requests per second.
+ * - threads=platform: a pool of 200 platform threads (Tomcat's default max)
+ * - threads=virtual: a virtual thread per request; needs JDK 21, fails on 17
+ * Cache and usage are off / no-ops and every request is distinct, so each one waits for the model.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadsBenchmark {
+
+    private static final int REQUESTS = 2000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private GenerationService service;
+    private AuthPrincipal principal;
+    private ExecutorService requestThreads;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GenerationHistoryWriter noHistory = new GenerationHistoryWriter(null, null, meterRegistry, 1, 1,
+                Duration.ofMillis(200), Duration.ofMillis(50)) {
+            @Override
+            public void enqueue(GenerationHistory history) {
+            }
+        };
+        UsageService unlimitedUsage = new UsageService(null) {
+            @Override
+            public void reserve(Long userId, int amount) {
+            }
+
+            @Override
+            public void refund(Long userId, int amount) {
+            }
+        };
+        service = new GenerationService(new StubLLMService(Duration.ofMillis(200)), noHistory, unlimitedUsage,
+                new GenerationCache(false, DataSize.ofMegabytes(16), Duration.ofHours(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry), Runnable::run, 50, 16, true);
+        principal = new AuthPrincipal(42L, "bench@example.com", Plan.PRO);
+        // the build targets 17, so the JDK 21 factory is looked up at run time
+        requestThreads = "virtual".equals(threads)
+                ? (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null)
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestThreads.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            GenerateRequest request = Fixtures.request("instagram", "fitness", "kw" + sequence.incrementAndGet());
+            requestThreads.execute(() -> {
+                try {
+                    service.generateForUser(principal, request);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,25 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.service.GenerationCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/generationcache - hit/miss/eviction stats and memory use of the generation cache.
+ */
+@Component
+@Endpoint(id = "generationcache")
+@RequiredArgsConstructor
+public class GenerationCacheEndpoint {
+
+    private final GenerationCache generationCache;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return generationCache.stats();
+    }
+}
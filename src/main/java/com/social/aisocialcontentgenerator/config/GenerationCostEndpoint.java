@@ -0,0 +1,32 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.service.GenerationCostTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * GET /actuator/generationcost - LLM calls, tokens and average latency per day and plan.
+ * GET /actuator/generationcost/{userId} - the same for one user.
+ */
+@Component
+@Endpoint(id = "generationcost")
+@RequiredArgsConstructor
+public class GenerationCostEndpoint {
+
+    private final GenerationCostTracker costTracker;
+
+    @ReadOperation
+    public Map<String, Object> totals() {
+        return costTracker.totalsByDayAndPlan();
+    }
+
+    @ReadOperation
+    public Map<String, Object> forUser(@Selector Long userId) {
+        return costTracker.totalsForUser(userId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.service.HistoryReplayService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * GET /actuator/generationreplay?days=7 - raw vs canonical cache key hit rate over recent generation_history.
+ * days is capped at app.generation.replay.max-days: the replay streams every row of the window.
+ */
+@Component
+@Endpoint(id = "generationreplay")
+public class HistoryReplayEndpoint {
+
+    private final HistoryReplayService historyReplayService;
+    private final int maxDays;
+
+    public HistoryReplayEndpoint(HistoryReplayService historyReplayService,
+                                 @Value("${app.generation.replay.max-days:30}") int maxDays) {
+        this.historyReplayService = historyReplayService;
+        this.maxDays = maxDays;
+    }
+
+    @ReadOperation
+    public Map<String, Object> replay(@Nullable Integer days) {
+        int d = days == null ? Math.min(7, maxDays) : days;
+        if (d < 1 || d > maxDays) {
+            throw new InvalidEndpointRequestException("days must be between 1 and " + maxDays, "Invalid days");
+        }
+        return historyReplayService.replay(Duration.ofDays(d));
+    }
+}
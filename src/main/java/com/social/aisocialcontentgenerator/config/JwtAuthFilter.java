@@ -1,14 +1,18 @@
 package com.social.aisocialcontentgenerator.config;
 
-import com.social.aisocialcontentgenerator.entity.User;
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.jfr.AuthEvent;
 import com.social.aisocialcontentgenerator.repository.UserRepository;
+import com.social.aisocialcontentgenerator.service.AccountCache;
 import com.social.aisocialcontentgenerator.util.JwtUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,14 +22,17 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class JwtAuthFilter  extends OncePerRequestFilter {
 
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
     private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
+    private final AccountCache accountCache;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
 
 
     @Override
@@ -34,21 +41,49 @@ public class JwtAuthFilter  extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
         if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
+            AuthEvent event = new AuthEvent();
+            event.begin();
             String token = authHeader.substring(7);
-            if (jwtUtils.validateToken(token)) {
-                String subject = jwtUtils.getSubjectFromToken(token); // we used email as subject
-                // Lookup user by email
-                Optional<User> userOpt = userRepository.findByEmail(subject);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    String userEmail = user.getEmail();
-                    // create authentication with principal = userId
-                    var auth = new UsernamePasswordAuthenticationToken(userEmail, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
-                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            String outcome = "invalid_token";
+            AuthPrincipal principal = null;
+            // single signature check; userId comes from the claims, the current plan and role from AccountCache
+            Claims claims = jwtUtils.parseToken(token);
+            if (claims != null) {
+                AuthPrincipal fromClaims = jwtUtils.toPrincipal(claims);
+                AccountCache.Account account = resolveAccount(fromClaims);
+                outcome = account == null ? "unknown_user" : fromClaims.getUserId() == null ? "legacy_lookup" : "authenticated";
+                if (account != null) {
+                    principal = new AuthPrincipal(account.userId(), fromClaims.getEmail(), account.plan());
+                    var auth = new UsernamePasswordAuthenticationToken(principal, null, authorities(account.role()));
+                    auth.setDetails(detailsSource.buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 }
             }
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.path = request.getRequestURI();
+                event.outcome = outcome;
+                if (principal != null) event.userId = principal.getUserId();
+                event.commit();
+            }
         }
         filterChain.doFilter(request, response);
     }
+
+    // the plan claim is the plan at issue time and goes stale on an upgrade, so it is not trusted;
+    // tokens issued before userId/plan claims existed: look the user up once (we used email as subject)
+    private AccountCache.Account resolveAccount(AuthPrincipal fromClaims) {
+        if (fromClaims.getUserId() != null) {
+            return accountCache.get(fromClaims.getUserId());
+        }
+        return userRepository.findByEmail(fromClaims.getEmail())
+                .map(user -> new AccountCache.Account(user.getId(), user.getPlan(), user.getRole()))
+                .orElse(null);
+    }
+
+    // users.role: USER, or ADMIN for the actuator endpoints (SecurityConfig)
+    private static List<GrantedAuthority> authorities(String role) {
+        if (role == null || role.equals("USER")) return USER_AUTHORITIES;
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
 }
@@ -0,0 +1,126 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.service.LLMService;
+import com.social.aisocialcontentgenerator.service.LlmCircuitBreaker;
+import com.social.aisocialcontentgenerator.service.LlmConcurrencyLimiter;
+import com.social.aisocialcontentgenerator.service.PromptPrefixCache;
+import com.social.aisocialcontentgenerator.service.impl.GuardedLLMService;
+import com.social.aisocialcontentgenerator.service.impl.HedgingLLMService;
+import com.social.aisocialcontentgenerator.service.impl.HttpGeminiService;
+import com.social.aisocialcontentgenerator.service.impl.RoutingLLMService;
+import com.social.aisocialcontentgenerator.service.impl.StubLLMService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(LlmRoutingProperties.class)
+public class LlmConfig {
+
+    /**
+     * Connection pool for LLM traffic only, so it can be sized and tuned independently of other outbound HTTP.
+     * LIFO hands out the most recently used connection, keeping a warm set of TLS connections instead of
+     * spreading calls (and idle timeouts) over all of them. Idle connections are closed before typical
+     * load-balancer idle timeouts so a reused connection is not already dead.
+     * metrics(true): reactor.netty.connection.provider.* (active / idle / pending connections, acquire time).
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider llmConnectionProvider(@Value("${llm.http.max-connections:100}") int maxConnections,
+                                                    @Value("${llm.http.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+                                                    @Value("${llm.http.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+                                                    @Value("${llm.http.max-idle-time:55s}") Duration maxIdleTime,
+                                                    @Value("${llm.http.max-life-time:10m}") Duration maxLifeTime,
+                                                    @Value("${llm.http.evict-interval:30s}") Duration evictInterval) {
+        return ConnectionProvider.builder("llm")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .lifo()
+                .metrics(true)
+                .build();
+    }
+
+    // shared by every Gemini backend; HTTP/2 is negotiated via ALPN on https, plain http stays on HTTP/1.1
+    private static WebClient llmWebClient(WebClient.Builder webClientBuilder, ConnectionProvider connectionProvider,
+                                          boolean http2, Duration connectTimeout) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true);
+        if (http2) {
+            // several calls share one connection (multiplexed streams) instead of one connection each
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Bean
+    public RoutingLLMService routingLlmService(LlmRoutingProperties properties,
+                                               WebClient.Builder webClientBuilder,
+                                               ConnectionProvider llmConnectionProvider,
+                                               @Value("${llm.http.http2:true}") boolean http2,
+                                               @Value("${llm.http.connect-timeout:5s}") Duration connectTimeout,
+                                               MeterRegistry meterRegistry,
+                                               PromptPrefixCache promptPrefixCache,
+                                               @Value("${llm.apiUrl}") String apiUrl,
+                                               @Value("${llm.apiKey}") String apiKey,
+                                               @Value("${llm.stub.enabled:false}") boolean stubEnabled,
+                                               @Value("${llm.stub.latency:4s}") Duration stubLatency) {
+        WebClient webClient = llmWebClient(webClientBuilder, llmConnectionProvider, http2, connectTimeout);
+        Map<String, LLMService> backends = new LinkedHashMap<>();
+        if (stubEnabled) {
+            // load testing: nothing leaves the process, whatever else is configured
+            backends.put("stub", new StubLLMService(stubLatency));
+        } else if (properties.getBackends().isEmpty()) {
+            backends.put("gemini", new HttpGeminiService(webClient, apiUrl, apiKey, promptPrefixCache));
+        } else {
+            for (LlmRoutingProperties.Backend backend : properties.getBackends()) {
+                LLMService service = switch (backend.getType()) {
+                    case GEMINI -> new HttpGeminiService(webClient,
+                            backend.getApiUrl() != null ? backend.getApiUrl() : apiUrl,
+                            backend.getApiKey() != null ? backend.getApiKey() : apiKey,
+                            promptPrefixCache);
+                    case STUB -> new StubLLMService(backend.getLatency());
+                };
+                backends.put(backend.getName(), service);
+            }
+        }
+        return new RoutingLLMService(backends, properties, meterRegistry);
+    }
+
+    // what the application calls: limiter + circuit breaker around the router, hedged when llm.hedging.enabled=true
+    // (the guard sits inside the hedge so a hedge is an ordinary call for limiting and failure counting)
+    @Bean
+    @Primary
+    public LLMService llmService(RoutingLLMService routingLlmService,
+                                 LlmConcurrencyLimiter limiter,
+                                 LlmCircuitBreaker circuitBreaker,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${llm.hedging.enabled:false}") boolean hedgingEnabled,
+                                 @Value("${llm.hedging.percentile:0.95}") double hedgingPercentile,
+                                 @Value("${llm.hedging.min-delay:2s}") Duration hedgingMinDelay,
+                                 @Value("${llm.hedging.max-extra-ratio:0.05}") double hedgingMaxExtraRatio,
+                                 @Value("${llm.hedging.window:1000}") int hedgingWindow) {
+        LLMService guarded = new GuardedLLMService(routingLlmService, limiter, circuitBreaker);
+        if (!hedgingEnabled) return guarded;
+        return new HedgingLLMService(guarded, hedgingPercentile, hedgingMinDelay,
+                hedgingMaxExtraRatio, hedgingWindow, meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.service.LlmCircuitBreaker;
+import com.social.aisocialcontentgenerator.service.LlmConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /actuator/llmprotection - current adaptive concurrency limit and circuit breaker state of LLM calls.
+ */
+@Component
+@Endpoint(id = "llmprotection")
+@RequiredArgsConstructor
+public class LlmProtectionEndpoint {
+
+    private final LlmConcurrencyLimiter limiter;
+    private final LlmCircuitBreaker circuitBreaker;
+
+    @ReadOperation
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("concurrencyLimit", limiter.snapshot());
+        state.put("circuitBreaker", circuitBreaker.snapshot());
+        return state;
+    }
+}
@@ -0,0 +1,71 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * llm.routing.*: the LLM backends RoutingLLMService chooses from and the per-plan policies.
+ * With no backends configured there is a single backend built from llm.apiUrl / llm.apiKey
+ * (or the stub when llm.stub.enabled=true), i.e. the behaviour before routing existed.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "llm.routing")
+public class LlmRoutingProperties {
+
+    private List<Backend> backends = new ArrayList<>();
+
+    // plan -> policy; plans without a policy may use every backend (fastest first)
+    private Map<Plan, Policy> plans = new HashMap<>();
+
+    // weight of the newest observation in the latency / error-rate averages
+    private double ewmaAlpha = 0.2;
+
+    // a backend whose average error rate is at or above this is unhealthy...
+    private double maxErrorRate = 0.5;
+
+    // ...until this long after its last failure, when it gets another try
+    private Duration retryAfter = Duration.ofSeconds(30);
+
+    // calls a backend with no result yet may have in flight; beyond that FASTEST ranks it last until one ends
+    private int probeCalls = 2;
+
+    @Getter
+    @Setter
+    public static class Backend {
+        private String name;
+        private Type type = Type.GEMINI;
+        // gemini: full generateContent URL of the model, key defaults to llm.apiKey
+        private String apiUrl;
+        private String apiKey;
+        // stub: simulated latency
+        private Duration latency = Duration.ofSeconds(4);
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        // backend names this plan may use, in order of preference
+        private List<String> backends = new ArrayList<>();
+        private Strategy strategy = Strategy.FASTEST;
+    }
+
+    public enum Type {
+        GEMINI, STUB
+    }
+
+    public enum Strategy {
+        // healthy backend with the lowest average latency
+        FASTEST,
+        // first healthy backend in the listed order (e.g. best model first, cheaper ones as fallback)
+        ORDERED
+    }
+}
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequiredArgsConstructor
@@ -30,7 +31,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body(new AuthResponse("Email already in use"));
         }
         User user = userService.createUser(req.getEmail(), req.getPassword());
-        String token = jwtUtils.generateToken(user.getEmail());
+        String token = jwtUtils.generateToken(user);
         return ResponseEntity.ok(new AuthResponse(token));
     }
 
@@ -39,8 +40,11 @@ public class AuthController {
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest req) {
         try {
             User user = userService.validateUser(req.getEmail(), req.getPassword());
-            String token = jwtUtils.generateToken(user.getEmail());
+            String token = jwtUtils.generateToken(user);
             return ResponseEntity.ok(new AuthResponse(token));
+        } catch (ResponseStatusException e) {
+            // e.g. 429 when the password hashing pool is saturated
+            throw e;
         } catch (RuntimeException e) {
             return new ResponseEntity<>(new AuthResponse(e.getMessage())
                     ,HttpStatus.UNAUTHORIZED);
@@ -1,14 +1,24 @@
 package com.social.aisocialcontentgenerator.controller;
 
 
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateRequest;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateResponse;
 import com.social.aisocialcontentgenerator.dto.GenerateRequest;
 import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateResponse;
 import com.social.aisocialcontentgenerator.service.GenerationService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -22,14 +32,41 @@ public class GenerateController {
     }
 
     @PostMapping("/generate")
-    public ResponseEntity<GenerateResponse> generate(@Valid @RequestBody GenerateRequest req,
-                                                     Authentication authentication) {
-        String email = null;
-        if (authentication != null && authentication.getPrincipal() instanceof String) {
-            email = (String) authentication.getPrincipal();
+    public CompletableFuture<ResponseEntity<GenerateResponse>> generate(@Valid @RequestBody GenerateRequest req,
+                                                                        Authentication authentication) {
+        // Servlet async: the request thread is released while the LLM call is in flight.
+        return generationService.generateForUserAsync(resolvePrincipal(authentication), req)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // results in request order; one failing entry does not fail the batch
+    @PostMapping("/generate/batch")
+    public CompletableFuture<ResponseEntity<BatchGenerateResponse>> generateBatch(@Valid @RequestBody BatchGenerateRequest req,
+                                                                                  Authentication authentication) {
+        return generationService.generateBatchForUser(resolvePrincipal(authentication), req.getRequests())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // one LLM call for several platforms; response keyed by platform
+    @PostMapping("/generate/multi")
+    public CompletableFuture<ResponseEntity<MultiPlatformGenerateResponse>> generateMultiPlatform(@Valid @RequestBody MultiPlatformGenerateRequest req,
+                                                                                                 Authentication authentication) {
+        return generationService.generateMultiPlatformForUser(resolvePrincipal(authentication), req)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // SSE: events "caption", "hashtag", "idea" as they complete, then "done" (full response) or "error"
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> generateStream(@Valid @RequestBody GenerateRequest req,
+                                                        Authentication authentication) {
+        return generationService.streamForUser(resolvePrincipal(authentication), req)
+                .map(e -> ServerSentEvent.builder(e.getData()).event(e.getType()).build());
+    }
+
+    private static AuthPrincipal resolvePrincipal(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof AuthPrincipal principal) {
+            return principal;
         }
-        // If JWT filter didn't set a Long principal (maybe future), try email->userId lookup is needed.
-        GenerateResponse resp = generationService.generateForUser(email, req);
-        return ResponseEntity.ok(resp);
+        return null;
     }
 }
@@ -1,5 +1,6 @@
 package com.social.aisocialcontentgenerator.controller;
 
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
 import com.social.aisocialcontentgenerator.dto.UserProfileDto;
 import com.social.aisocialcontentgenerator.entity.User;
 import com.social.aisocialcontentgenerator.repository.UserRepository;
@@ -32,9 +33,9 @@ public class UserController {
 
         Object principal = authentication.getPrincipal();
 
-        // If principal is userId (Long), look up the user
-        if (principal instanceof Long userId) {
-            Optional<User> u = userRepository.findById(userId);
+        // JWT principal carries the userId: look up the user
+        if (principal instanceof AuthPrincipal authPrincipal && authPrincipal.getUserId() != null) {
+            Optional<User> u = userRepository.findById(authPrincipal.getUserId());
             if (u.isPresent()) {
                 User user = u.get();
                 UserProfileDto dto = new UserProfileDto(user.getId(), user.getEmail(), user.getRole());
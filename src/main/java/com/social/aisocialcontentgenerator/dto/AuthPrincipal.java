@@ -0,0 +1,30 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+
+/**
+ * Principal set by JwtAuthFilter: userId and email from the token claims, plan from AccountCache
+ * (current to within its TTL). getName() is the email, so authentication.getName() keeps returning the email.
+ * Quota decisions still read the plan in the reserving UPDATE (UsageService).
+ */
+@Getter
+@AllArgsConstructor
+public class AuthPrincipal implements Principal {
+    private final Long userId;
+    private final String email;
+    private final Plan plan;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String toString() {
+        return email;
+    }
+}
@@ -0,0 +1,21 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of one entry of a batch, at the same {@code index} as in the request.
+ * Exactly one of {@code response} and {@code error} is set.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchGenerateItem {
+    private int index;
+    private GenerateResponse response;
+    private String error;
+
+}
@@ -0,0 +1,18 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchGenerateRequest {
+    @NotEmpty
+    private List<@Valid GenerateRequest> requests;
+
+    public BatchGenerateRequest() {}
+
+}
@@ -0,0 +1,15 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchGenerateResponse {
+    private List<BatchGenerateItem> results;
+
+}
@@ -0,0 +1,26 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One event of a streamed generation. {@code type} is the SSE event name
+ * (caption, hashtag, idea, done, error) and {@code data} its payload.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GenerationStreamEvent {
+    public static final String CAPTION = "caption";
+    public static final String HASHTAG = "hashtag";
+    public static final String IDEA = "idea";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    private String type;
+    private Object data;
+
+}
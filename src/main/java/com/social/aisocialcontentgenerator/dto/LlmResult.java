@@ -0,0 +1,19 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Model text of one LLM call plus its token usage ({@code usage} is null when the backend does not report it).
+ */
+@Getter
+@AllArgsConstructor
+public class LlmResult {
+    private final String text;
+    private final LlmUsage usage;
+
+    public static LlmResult of(String text) {
+        return new LlmResult(text, null);
+    }
+
+}
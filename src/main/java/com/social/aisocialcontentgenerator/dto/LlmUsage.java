@@ -0,0 +1,22 @@
+package com.social.aisocialcontentgenerator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Token counts of one LLM call, as reported by Gemini's usageMetadata.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LlmUsage {
+    private int promptTokens;
+    private int candidatesTokens;
+    private int totalTokens;
+    private int cachedContentTokens;
+    private int thoughtsTokens;
+
+}
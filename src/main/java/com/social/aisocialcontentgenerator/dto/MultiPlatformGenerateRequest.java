@@ -0,0 +1,36 @@
+package com.social.aisocialcontentgenerator.dto;
+
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Same industry / tone / keywords for several platforms, generated with one LLM call.
+ */
+@Getter
+@Setter
+public class MultiPlatformGenerateRequest {
+    @NotEmpty
+    private List<@NotBlank String> platforms;
+    @NotBlank
+    private String industry;
+    private String tone = "friendly";
+    private String keywords;
+
+    public MultiPlatformGenerateRequest() {}
+
+    // the single-platform request this one stands for on the given platform
+    public GenerateRequest forPlatform(String platform) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform(platform);
+        req.setIndustry(industry);
+        req.setTone(tone);
+        req.setKeywords(keywords);
+        return req;
+    }
+
+}
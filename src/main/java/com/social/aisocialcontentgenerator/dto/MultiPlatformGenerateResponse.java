@@ -0,0 +1,22 @@
+package com.social.aisocialcontentgenerator.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One response per requested platform, keyed by canonical platform name (instagram, linkedin, x, ...).
+ * Platforms the model left out are listed in {@code missingPlatforms} (and not charged).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiPlatformGenerateResponse {
+    private Map<String, GenerateResponse> results;
+    private List<String> missingPlatforms;
+
+}
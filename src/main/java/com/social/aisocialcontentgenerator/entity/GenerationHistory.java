@@ -3,6 +3,7 @@ package com.social.aisocialcontentgenerator.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Immutable;
 
 import java.time.Instant;
 
@@ -23,8 +24,23 @@ public class GenerationHistory {
     @Lob
     private String keywords;
 
+    // parsed answer, compressed (GenerationOutputConverter); decoded only when read
     @Lob
-    private String outputJson; // raw modelText or raw JSON
+    @Immutable
+    @Convert(converter = GenerationOutputConverter.class)
+    private GenerationOutput output;
+
+    // raw modelText: rows written before output existed (until GenerationHistoryMigration drops it)
+    // and answers that only parsed heuristically
+    @Lob
+    private String outputJson;
+
+    // usage of the LLM call behind this row; null when it was served by the cache or another request's call
+    private Integer promptTokens;
+    private Integer candidatesTokens;
+    private Integer totalTokens;
+    private Integer cachedTokens;
+    private Long modelLatencyMs;
 
     private Instant createdAt = Instant.now();
 
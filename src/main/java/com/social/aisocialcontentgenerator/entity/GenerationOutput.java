@@ -0,0 +1,38 @@
+package com.social.aisocialcontentgenerator.entity;
+
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+
+/**
+ * The parsed answer stored on a GenerationHistory row, in GenerationOutputConverter's encoding.
+ * Holds one side and produces the other on first use: rows built by GenerationService are encoded
+ * on the history writer's thread, rows read back are only decompressed when response() is called.
+ * Treat it as immutable; store a new one to change a row's output.
+ */
+public final class GenerationOutput {
+
+    private GenerateResponse response;
+    private byte[] encoded;
+
+    private GenerationOutput(GenerateResponse response, byte[] encoded) {
+        this.response = response;
+        this.encoded = encoded;
+    }
+
+    public static GenerationOutput of(GenerateResponse response) {
+        return new GenerationOutput(response, null);
+    }
+
+    public static GenerationOutput ofEncoded(byte[] encoded) {
+        return new GenerationOutput(null, encoded);
+    }
+
+    public synchronized GenerateResponse response() {
+        if (response == null) response = GenerationOutputConverter.decode(encoded);
+        return response;
+    }
+
+    public synchronized byte[] encoded() {
+        if (encoded == null) encoded = GenerationOutputConverter.encode(response);
+        return encoded;
+    }
+}
@@ -0,0 +1,94 @@
+package com.social.aisocialcontentgenerator.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage format of generation_history.output: one format version byte, then the payload.
+ * - Version 1: compact JSON of GenerateResponse (nulls left out), raw DEFLATE with a preset dictionary
+ *   of the field names and punctuation every answer repeats; it carries most of the gain on answers of
+ *   a few hundred bytes, where plain DEFLATE has little history to match against.
+ * Changing the JSON shape or the dictionary needs a new version; decode keeps reading the old ones.
+ */
+@Converter
+public class GenerationOutputConverter implements AttributeConverter<GenerationOutput, byte[]> {
+
+    static final byte FORMAT_V1 = 1;
+
+    private static final byte[] DICTIONARY_V1 = ("\",\"imageIdea\":\"\",\"description\":\"\"},{\"title\":\""
+            + "\"],\"ideas\":[{\"title\":\"\",\"#\",\"#\"],\"hashtags\":[\"#\",\"\"{\"captions\":[\"")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final ObjectMapper JSON = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Override
+    public byte[] convertToDatabaseColumn(GenerationOutput output) {
+        return output == null ? null : output.encoded();
+    }
+
+    // no decompression here: GenerationOutput decodes when the response is first asked for
+    @Override
+    public GenerationOutput convertToEntityAttribute(byte[] column) {
+        return column == null ? null : GenerationOutput.ofEncoded(column);
+    }
+
+    public static byte[] encode(GenerateResponse response) {
+        byte[] json;
+        try {
+            json = JSON.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot serialize generation output", e);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(json);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 16);
+            out.write(FORMAT_V1);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static GenerateResponse decode(byte[] column) {
+        if (column.length == 0 || column[0] != FORMAT_V1) {
+            throw new IllegalStateException("Unknown generation output format "
+                    + (column.length == 0 ? "(empty)" : String.valueOf(column[0])));
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_V1);
+            inflater.setInput(column, 1, column.length - 1);
+            ByteArrayOutputStream json = new ByteArrayOutputStream(column.length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated generation output");
+                }
+                json.write(buffer, 0, n);
+            }
+            return JSON.readValue(json.toByteArray(), GenerateResponse.class);
+        } catch (DataFormatException | IOException e) {
+            throw new IllegalStateException("Corrupt generation output", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
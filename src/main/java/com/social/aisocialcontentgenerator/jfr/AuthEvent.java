@@ -0,0 +1,34 @@
+package com.social.aisocialcontentgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Bearer token authentication of one request in JwtAuthFilter (signature check, claims, and the user
+ * lookup for legacy tokens). Requests without a bearer token emit nothing.
+ */
+@Name("com.social.Auth")
+@Label("Authentication")
+@Category({"AI Social Content Generator", "Security"})
+@Description("JWT authentication of a request")
+@Enabled(false)
+@StackTrace(false)
+public class AuthEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Outcome")
+    @Description("authenticated, legacy_lookup (authenticated after a user lookup), unknown_user or invalid_token")
+    public String outcome;
+
+    @Label("User Id")
+    public long userId;
+}
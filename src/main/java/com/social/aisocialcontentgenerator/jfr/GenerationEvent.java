@@ -0,0 +1,53 @@
+package com.social.aisocialcontentgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One generation (one platform of it, for multi-platform requests), from quota reservation to the
+ * parsed response. Async generations begin on the request thread and commit on the task executor.
+ * Disabled unless a recording enables it (src/main/jfr/generation.jfc).
+ */
+@Name("com.social.Generation")
+@Label("Generation")
+@Category({"AI Social Content Generator", "Generation"})
+@Description("A content generation request and where its time went")
+@Enabled(false)
+@StackTrace(false)
+public class GenerationEvent extends jdk.jfr.Event {
+
+    @Label("Kind")
+    @Description("sync, async, stream, batch or multi")
+    public String kind;
+
+    @Label("Platform")
+    public String platform;
+
+    @Label("Plan")
+    public String plan;
+
+    @Label("Cache Hit")
+    @Description("Served from the generation cache, no LLM call")
+    public boolean cacheHit;
+
+    @Label("LLM Time")
+    @Description("Duration of the LLM call made for this generation; 0 for cache hits and coalesced requests")
+    @Timespan(Timespan.MILLISECONDS)
+    public long llmMillis;
+
+    @Label("Parse Path")
+    @Description("PromptParser path that produced the response")
+    public String parsePath;
+
+    @Label("Response Length")
+    @Description("Characters of model text behind the response")
+    public long responseLength;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
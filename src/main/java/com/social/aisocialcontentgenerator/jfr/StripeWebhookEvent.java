@@ -0,0 +1,35 @@
+package com.social.aisocialcontentgenerator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Handling of one Stripe webhook in BillingServiceImpl.handleEvent, signature check included.
+ */
+@Name("com.social.StripeWebhook")
+@Label("Stripe Webhook")
+@Category({"AI Social Content Generator", "Billing"})
+@Description("A Stripe webhook delivery and its handling")
+@Enabled(false)
+@StackTrace(false)
+public class StripeWebhookEvent extends jdk.jfr.Event {
+
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Event Id")
+    public String eventId;
+
+    @Label("Outcome")
+    @Description("handled, ignored, no_payload, invalid_signature or failed")
+    public String outcome;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadSize;
+}
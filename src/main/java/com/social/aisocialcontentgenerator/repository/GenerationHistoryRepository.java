@@ -3,9 +3,26 @@ package com.social.aisocialcontentgenerator.repository;
 
 import com.social.aisocialcontentgenerator.entity.GenerationHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.hibernate.jpa.HibernateHints;
+import jakarta.persistence.QueryHint;
+
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface GenerationHistoryRepository extends JpaRepository<GenerationHistory, Long> {
     List<GenerationHistory> findByUserIdOrderByCreatedAtDesc(Long userId);
-}
 
+    // request columns only (no outputJson), oldest first; used to replay traffic against key strategies
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RequestView> streamByCreatedAtAfterOrderByCreatedAtAsc(Instant after);
+
+    interface RequestView {
+        String getPlatform();
+        String getIndustry();
+        String getTone();
+        String getKeywords();
+        Instant getCreatedAt();
+    }
+}
@@ -1,13 +1,69 @@
 package com.social.aisocialcontentgenerator.repository;
 
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
 import com.social.aisocialcontentgenerator.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // plan and role only, for AccountCache
+    Optional<AccountView> findAccountById(Long id);
+
+    /**
+     * Atomically reserve {@code amount} generations of today's quota: resets the counter on a new day,
+     * adds {@code amount} and checks the limit in one UPDATE. Users on {@code limitedPlan} only pass
+     * while the new total stays within {@code limit}.
+     * dailyUsage is assigned before lastUsageDate on purpose: MySQL evaluates SET left to right.
+     *
+     * @return 1 if reserved, 0 if the limit would be exceeded (or the user does not exist)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET "
+            + "u.dailyUsage = CASE WHEN u.lastUsageDate = :today THEN u.dailyUsage + :amount ELSE :amount END, "
+            + "u.lastUsageDate = :today "
+            + "WHERE u.id = :userId AND (u.plan <> :limitedPlan "
+            + "OR (CASE WHEN u.lastUsageDate = :today THEN u.dailyUsage ELSE 0 END) + :amount <= :limit)")
+    int reserveDailyUsage(@Param("userId") Long userId,
+                          @Param("amount") int amount,
+                          @Param("today") LocalDate today,
+                          @Param("limitedPlan") Plan limitedPlan,
+                          @Param("limit") int limit);
+
+    /**
+     * Give back a reservation made today (failed generation). No-op once the day has rolled over.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.dailyUsage = u.dailyUsage - :amount "
+            + "WHERE u.id = :userId AND u.lastUsageDate = :today AND u.dailyUsage >= :amount")
+    int refundDailyUsage(@Param("userId") Long userId,
+                         @Param("amount") int amount,
+                         @Param("today") LocalDate today);
+
+    /**
+     * Replace the password hash unless it changed since it was read (password reset in between).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :newHash WHERE u.id = :userId AND u.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("userId") Long userId,
+                           @Param("oldHash") String oldHash,
+                           @Param("newHash") String newHash);
+
+    interface AccountView {
+        Plan getPlan();
+        String getRole();
+    }
 }
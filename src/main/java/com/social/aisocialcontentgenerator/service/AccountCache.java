@@ -0,0 +1,49 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Current plan and role per user id, read from the users table and kept for app.security.account-cache.ttl.
+ * Tokens carry the plan at issue time; JwtAuthFilter takes plan and role from here instead, so a Stripe
+ * upgrade (or a role change) applies within the TTL rather than when the token expires. The instance
+ * that changes a plan evicts the entry, so there it applies on the next request.
+ */
+@Component
+public class AccountCache {
+
+    public record Account(Long userId, Plan plan, String role) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Account> cache;
+
+    public AccountCache(UserRepository userRepository,
+                        @Value("${app.security.account-cache.ttl:1m}") Duration ttl,
+                        @Value("${app.security.account-cache.max-size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * The user's current plan and role, or null if there is no such user (not cached).
+     */
+    public Account get(Long userId) {
+        return cache.get(userId, id -> userRepository.findAccountById(id)
+                .map(view -> new Account(id, view.getPlan() == null ? Plan.FREE : view.getPlan(), view.getRole()))
+                .orElse(null));
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+}
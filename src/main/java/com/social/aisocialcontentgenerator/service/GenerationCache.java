@@ -0,0 +1,86 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process cache of model output per canonical request key (see GenerationKey).
+ * - Bounded by an estimated memory budget (app.generation.cache.max-memory), not an entry count.
+ * - Caffeine's W-TinyLFU eviction keeps frequently requested combinations over one-off ones.
+ * - Entries expire after app.generation.cache.ttl so users keep getting fresh copy.
+ * Sits below quota enforcement in GenerationService: a hit still counts usage and writes history,
+ * it only skips the LLM round trip. Stats are published as cache.* metrics (cache=generations)
+ * and via the generationcache actuator endpoint.
+ */
+@Component
+public class GenerationCache {
+
+    static final String NAME = "generations";
+
+    private final boolean enabled;
+    private final long maxWeight;
+    private final Duration ttl;
+    private final Cache<String, String> cache;
+
+    public GenerationCache(@Value("${app.generation.cache.enabled:true}") boolean enabled,
+                           @Value("${app.generation.cache.max-memory:64MB}") DataSize maxMemory,
+                           @Value("${app.generation.cache.ttl:1h}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWeight = maxMemory.toBytes();
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(GenerationCache::estimateBytes)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public String get(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, String modelText) {
+        if (enabled && modelText != null && !modelText.isBlank()) {
+            cache.put(key, modelText);
+        }
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("entries", cache.estimatedSize());
+        out.put("weightedBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        out.put("maxBytes", maxWeight);
+        out.put("ttlSeconds", ttl.toSeconds());
+        out.put("hits", stats.hitCount());
+        out.put("misses", stats.missCount());
+        out.put("hitRate", stats.hitRate());
+        out.put("evictions", stats.evictionCount());
+        out.put("evictedBytes", stats.evictionWeight());
+        return out;
+    }
+
+    // rough retained size: two String headers plus UTF-16 worst case for the characters
+    private static int estimateBytes(String key, String value) {
+        long bytes = 96L + 2L * key.length() + 2L * value.length();
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,55 @@
+package com.social.aisocialcontentgenerator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for LLM calls: concurrent callers with the same key (see GenerationKey) share one in-flight call.
+ * - The first caller (leader) starts the call; followers attach to its result.
+ * - The entry is removed as soon as the call completes, so later callers start a fresh call.
+ * - A caller cancelling its subscription never cancels the shared call for the others.
+ * Only the model text is shared; parsing, history and usage stay per caller.
+ */
+@Component
+public class GenerationCoalescer {
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public GenerationCoalescer(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("generation.coalescer.calls")
+                .tag("role", "leader")
+                .description("LLM calls actually started")
+                .register(meterRegistry);
+        this.followers = Counter.builder("generation.coalescer.calls")
+                .tag("role", "follower")
+                .description("Requests served by another request's in-flight LLM call")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("generation.coalescer.in_flight", Tags.empty(), inFlight);
+    }
+
+    public Mono<String> execute(String key, Supplier<Mono<String>> call) {
+        return Mono.defer(() -> {
+            CompletableFuture<String> created = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+            if (existing != null) {
+                followers.increment();
+                return Mono.fromFuture(existing, true);
+            }
+            leaders.increment();
+            created.whenComplete((text, ex) -> inFlight.remove(key, created));
+            // defer: a supplier that throws fails the future instead of leaving the key in flight forever
+            Mono.defer(call).subscribe(created::complete, created::completeExceptionally, () -> created.complete(null));
+            return Mono.fromFuture(created, true);
+        });
+    }
+}
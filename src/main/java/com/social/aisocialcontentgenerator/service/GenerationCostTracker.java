@@ -0,0 +1,147 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.LlmUsage;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token and latency accounting of the LLM calls made for generations (cache hits and coalesced
+ * followers make no call and cost nothing).
+ * - Metrics: llm.tokens (type = prompt / candidates / total / cached) and llm.call.latency, tagged
+ *   with plan, shape (single / multi / stream) and output (schema / text).
+ * - In memory: totals per user, plan and day for the last retention-days days, served by
+ *   /actuator/generationcost. Per platform / industry costs come from the history rows.
+ */
+@Component
+public class GenerationCostTracker {
+
+    private final MeterRegistry meterRegistry;
+    private final int retentionDays;
+    private final Map<Bucket, Totals> buckets = new ConcurrentHashMap<>();
+    private volatile LocalDate prunedOn = LocalDate.MIN;
+
+    public GenerationCostTracker(MeterRegistry meterRegistry,
+                                 @Value("${app.generation.cost.retention-days:7}") int retentionDays) {
+        this.meterRegistry = meterRegistry;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * One completed LLM call; {@code usage} is null when the backend did not report it (e.g. streaming).
+     */
+    public void record(Long userId, Plan plan, String shape, boolean schema, LlmUsage usage, Duration latency) {
+        String planTag = plan == null ? "NONE" : plan.name();
+        String output = schema ? "schema" : "text";
+        Timer.builder("llm.call.latency")
+                .description("Latency of LLM calls made for generations")
+                .tags("plan", planTag, "shape", shape, "output", output)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(latency);
+        if (usage != null) {
+            tokens("prompt", planTag, shape, output).record(usage.getPromptTokens());
+            tokens("candidates", planTag, shape, output).record(usage.getCandidatesTokens());
+            tokens("total", planTag, shape, output).record(usage.getTotalTokens());
+            tokens("cached", planTag, shape, output).record(usage.getCachedContentTokens());
+        }
+
+        LocalDate today = LocalDate.now();
+        buckets.computeIfAbsent(new Bucket(today, userId, plan), bucket -> new Totals()).add(usage, latency);
+        if (!today.equals(prunedOn)) {
+            prunedOn = today;
+            LocalDate oldest = today.minusDays(retentionDays - 1L);
+            buckets.keySet().removeIf(bucket -> bucket.day().isBefore(oldest));
+        }
+    }
+
+    /**
+     * Totals per day and plan, all users together.
+     */
+    public Map<String, Object> totalsByDayAndPlan() {
+        Map<LocalDate, Map<String, Totals>> days = new TreeMap<>();
+        buckets.forEach((bucket, totals) -> days.computeIfAbsent(bucket.day(), day -> new TreeMap<>())
+                .computeIfAbsent(String.valueOf(bucket.plan()), plan -> new Totals()).add(totals));
+        Map<String, Object> out = new LinkedHashMap<>();
+        days.forEach((day, plans) -> {
+            Map<String, Object> byPlan = new LinkedHashMap<>();
+            plans.forEach((plan, totals) -> byPlan.put(plan, totals.toMap()));
+            out.put(day.toString(), byPlan);
+        });
+        return out;
+    }
+
+    /**
+     * One user's totals per day (a user's plan can change within a day, so plans are kept apart).
+     */
+    public Map<String, Object> totalsForUser(Long userId) {
+        Map<String, Object> out = new TreeMap<>();
+        buckets.forEach((bucket, totals) -> {
+            if (!userId.equals(bucket.userId())) return;
+            out.put(bucket.day() + "/" + bucket.plan(), totals.toMap());
+        });
+        return out;
+    }
+
+    private DistributionSummary tokens(String type, String plan, String shape, String output) {
+        return DistributionSummary.builder("llm.tokens")
+                .baseUnit("tokens")
+                .description("Tokens per LLM call made for generations")
+                .tags("type", type, "plan", plan, "shape", shape, "output", output)
+                .register(meterRegistry);
+    }
+
+    private record Bucket(LocalDate day, Long userId, Plan plan) {
+    }
+
+    private static final class Totals {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder candidatesTokens = new LongAdder();
+        private final LongAdder totalTokens = new LongAdder();
+        private final LongAdder cachedTokens = new LongAdder();
+        private final LongAdder latencyMs = new LongAdder();
+
+        void add(LlmUsage usage, Duration latency) {
+            calls.increment();
+            latencyMs.add(latency.toMillis());
+            if (usage == null) return;
+            promptTokens.add(usage.getPromptTokens());
+            candidatesTokens.add(usage.getCandidatesTokens());
+            totalTokens.add(usage.getTotalTokens());
+            cachedTokens.add(usage.getCachedContentTokens());
+        }
+
+        void add(Totals other) {
+            calls.add(other.calls.sum());
+            promptTokens.add(other.promptTokens.sum());
+            candidatesTokens.add(other.candidatesTokens.sum());
+            totalTokens.add(other.totalTokens.sum());
+            cachedTokens.add(other.cachedTokens.sum());
+            latencyMs.add(other.latencyMs.sum());
+        }
+
+        Map<String, Object> toMap() {
+            long n = calls.sum();
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("calls", n);
+            out.put("promptTokens", promptTokens.sum());
+            out.put("candidatesTokens", candidatesTokens.sum());
+            out.put("totalTokens", totalTokens.sum());
+            out.put("cachedTokens", cachedTokens.sum());
+            out.put("avgLatencyMs", n == 0 ? 0 : latencyMs.sum() / n);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.entity.GenerationOutputConverter;
+import com.social.aisocialcontentgenerator.util.PromptParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background re-encoding of generation_history rows written before the output column, which hold
+ * the raw model text in output_json. Off by default (app.generation.history.migration.enabled).
+ * - Each run takes one batch of rows that still have output_json, walking the table by id, and stores
+ *   the parsed answer as output. Answers that only parse heuristically (PLAIN_TEXT) are left alone: their
+ *   parsed form is mostly placeholders, not what the model said.
+ * - output_json is kept, so the step can be checked and redone. With drop-raw it is cleared on rows that
+ *   have an output, including ones encoded by an earlier pass; rows without an output keep it for good.
+ * - A failing batch is retried row by row and rows that still fail are skipped (logged, counted);
+ *   after max-failures runs in a row that fail outright the job stops until the next start.
+ * A row is only encoded while its output is null, so several instances can run it at once. InnoDB only
+ * returns the freed space after OPTIMIZE TABLE generation_history.
+ */
+@Component
+@Slf4j
+public class GenerationHistoryMigration {
+
+    private static final String SELECT_SQL = "SELECT id, output_json, output IS NOT NULL FROM generation_history"
+            + " WHERE id > ? AND output_json IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String ENCODE_SQL = "UPDATE generation_history SET output = ? WHERE id = ? AND output IS NULL";
+    private static final String DROP_RAW_SQL = "UPDATE generation_history SET output_json = NULL"
+            + " WHERE id = ? AND output IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean dropRaw;
+    private final int batchSize;
+    private final int maxFailures;
+    private final Counter encoded;
+    private final Counter skipped;
+
+    private long lastId;
+    private int failures;
+    private volatile boolean done;
+
+    public GenerationHistoryMigration(JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.generation.history.migration.enabled:false}") boolean enabled,
+                                      @Value("${app.generation.history.migration.drop-raw:false}") boolean dropRaw,
+                                      @Value("${app.generation.history.migration.batch-size:500}") int batchSize,
+                                      @Value("${app.generation.history.migration.max-failures:5}") int maxFailures) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.dropRaw = dropRaw;
+        this.batchSize = batchSize;
+        this.maxFailures = maxFailures;
+        this.encoded = Counter.builder("generation.history.migrated")
+                .description("Legacy history rows re-encoded into the compressed output column")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("generation.history.migration.skipped")
+                .description("Legacy history rows left as raw text (heuristic parse only, or a failed update)")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.generation.history.migration.initial-delay:1m}",
+            fixedDelayString = "${app.generation.history.migration.interval:1s}")
+    public void run() {
+        if (!enabled || done) return;
+        try {
+            if (migrateBatch() == 0) {
+                done = true;
+                log.info("History output migration complete ({} rows encoded, {} left as raw text)",
+                        (long) encoded.count(), (long) skipped.count());
+            }
+            failures = 0;
+        } catch (Exception e) {
+            if (++failures >= maxFailures) {
+                done = true;
+                log.error("History output migration stopped after {} failed runs at id {}; restart to resume", failures, lastId, e);
+            } else {
+                log.warn("History output migration run after id {} failed, retrying", lastId, e);
+            }
+        }
+    }
+
+    /**
+     * Process the next batch of rows that still hold raw text; returns how many were read (0 = nothing left).
+     * Not synchronized: the fixed-delay schedule never overlaps runs, and a monitor held over JDBC would pin
+     * the carrier thread under virtual threads.
+     */
+    int migrateBatch() {
+        List<LegacyRow> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, n) -> new LegacyRow(rs.getLong(1), rs.getString(2), rs.getBoolean(3)), lastId, batchSize);
+        if (rows.isEmpty()) return 0;
+
+        List<Encoded> toEncode = new ArrayList<>();
+        List<Long> toDrop = new ArrayList<>();
+        for (LegacyRow row : rows) {
+            if (row.hasOutput()) {
+                toDrop.add(row.id());
+                continue;
+            }
+            PromptParser.Parsed parsed = PromptParser.parseStructuredWithPath(row.outputJson());
+            if (parsed.path() == PromptParser.ParsePath.PLAIN_TEXT || parsed.path() == PromptParser.ParsePath.EMPTY) {
+                skipped.increment();
+                continue;
+            }
+            toEncode.add(new Encoded(row.id(), GenerationOutputConverter.encode(parsed.response())));
+            toDrop.add(row.id());
+        }
+
+        encoded.increment(update(ENCODE_SQL, toEncode, (ps, row) -> {
+            ps.setBytes(1, row.output());
+            ps.setLong(2, row.id());
+        }));
+        // the WHERE keeps the raw text of rows whose encoding failed
+        if (dropRaw) update(DROP_RAW_SQL, toDrop, (ps, id) -> ps.setLong(1, id));
+
+        lastId = rows.get(rows.size() - 1).id();
+        return rows.size();
+    }
+
+    // one JDBC batch; if it fails, row by row so one bad row does not hold up the rest. Returns the rows
+    // actually changed: another instance may have got to a row between the SELECT and the UPDATE
+    private <T> int update(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        if (rows.isEmpty()) return 0;
+        try {
+            int updated = 0;
+            for (int[] counts : jdbcTemplate.batchUpdate(sql, rows, batchSize, setter)) {
+                for (int count : counts) updated += updatedRows(count);
+            }
+            return updated;
+        } catch (Exception batchFailure) {
+            log.warn("History output migration batch failed, retrying {} rows one by one", rows.size(), batchFailure);
+        }
+        int updated = 0;
+        for (T row : rows) {
+            try {
+                updated += jdbcTemplate.update(sql, ps -> setter.setValues(ps, row));
+            } catch (Exception e) {
+                skipped.increment();
+                log.error("History output migration skipped row {}", row, e);
+            }
+        }
+        return updated;
+    }
+
+    // a driver that does not report per-statement counts says each statement succeeded, i.e. one row by id
+    private static int updatedRows(int count) {
+        return count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+    }
+
+    private record LegacyRow(long id, String outputJson, boolean hasOutput) {
+    }
+
+    private record Encoded(long id, byte[] output) {
+        @Override
+        public String toString() {
+            return "id " + id;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence of GenerationHistory.
+ * - Requests enqueue rows and return; a single background writer drains the bounded queue and
+ *   inserts up to batch-size rows per JDBC batch (rewritten to one multi-row INSERT by Connector/J).
+ * - Backpressure: when the queue stays full for offer-timeout, the calling thread writes its own row.
+ *   Producers just slow down to the database's pace.
+ * - Each batch runs in one transaction. One the database rejects is rolled back and retried row by row,
+ *   so one bad row only loses itself; rows that still fail (e.g. the database is down) are logged and counted in generation.history.failed.
+ * - On shutdown the writer stops after the web server and flushes everything still queued.
+ * - The answer is compressed here (GenerationOutput), off the request thread.
+ * Rows go through JDBC rather than the EntityManager: Hibernate cannot batch IDENTITY inserts,
+ * a plain JDBC batch can, so the existing ids stay as they are.
+ */
+@Component
+@Slf4j
+public class GenerationHistoryWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL = "INSERT INTO generation_history "
+            + "(user_id, platform, industry, tone, keywords, output, output_json, prompt_tokens, candidates_tokens,"
+            + " total_tokens, cached_tokens, model_latency_ms, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final BlockingQueue<GenerationHistory> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary outputBytes;
+    private final Counter callerRuns;
+    private final Counter failedRows;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public GenerationHistoryWriter(JdbcTemplate jdbcTemplate,
+                                   TransactionOperations transactions,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.generation.history.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${app.generation.history.batch-size:100}") int batchSize,
+                                   @Value("${app.generation.history.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${app.generation.history.offer-timeout:50ms}") Duration offerTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+
+        meterRegistry.gaugeCollectionSize("generation.history.queue.depth", Tags.empty(), queue);
+        this.flushTimer = Timer.builder("generation.history.flush")
+                .description("Time to insert one batch of history rows")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("generation.history.batch.size")
+                .description("Rows per history insert batch")
+                .register(meterRegistry);
+        this.outputBytes = DistributionSummary.builder("generation.history.output.size")
+                .baseUnit("bytes")
+                .description("Stored (compressed) size of a history row's answer")
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("generation.history.caller_runs")
+                .description("Rows written on the request thread because the queue was full")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("generation.history.failed")
+                .description("Rows that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a row for insertion. Blocks for at most offer-timeout; after that (or when the writer
+     * is not running) the row is written synchronously on the calling thread.
+     */
+    public void enqueue(GenerationHistory history) {
+        if (running) {
+            try {
+                if (queue.offer(history, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        callerRuns.increment();
+        flush(List.of(history));
+    }
+
+    private void drainLoop() {
+        List<GenerationHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                GenerationHistory first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+            } catch (Exception e) {
+                log.error("History writer loop error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<GenerationHistory> batch) {
+        for (GenerationHistory h : batch) {
+            if (h.getOutput() != null) outputBytes.record(h.getOutput().encoded().length);
+        }
+        try {
+            // all or nothing, so the retry below cannot insert a row twice
+            flushTimer.record(() -> transactions.executeWithoutResult(
+                    tx -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, this::bind)));
+            batchSizes.record(batch.size());
+            return;
+        } catch (Exception e) {
+            log.warn("Failed to write {} history rows as a batch, retrying one by one", batch.size(), e);
+        }
+        for (GenerationHistory h : batch) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, h));
+            } catch (Exception e) {
+                failedRows.increment();
+                log.error("Failed to write history row for user {}", h.getUserId(), e);
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, GenerationHistory h) throws SQLException {
+        if (h.getUserId() == null) ps.setNull(1, Types.BIGINT);
+        else ps.setLong(1, h.getUserId());
+        ps.setString(2, h.getPlatform());
+        ps.setString(3, h.getIndustry());
+        ps.setString(4, h.getTone());
+        ps.setString(5, h.getKeywords());
+        ps.setBytes(6, h.getOutput() == null ? null : h.getOutput().encoded());
+        ps.setString(7, h.getOutputJson());
+        ps.setObject(8, h.getPromptTokens(), Types.INTEGER);
+        ps.setObject(9, h.getCandidatesTokens(), Types.INTEGER);
+        ps.setObject(10, h.getTotalTokens(), Types.INTEGER);
+        ps.setObject(11, h.getCachedTokens(), Types.INTEGER);
+        ps.setObject(12, h.getModelLatencyMs(), Types.BIGINT);
+        ps.setTimestamp(13, Timestamp.from(h.getCreatedAt() != null ? h.getCreatedAt() : Instant.now()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drainLoop, "history-writer");
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread == null) return;
+        // no interrupt: it could abort a batch mid-write; the poll returns within flush-interval
+        try {
+            writerThread.join(Duration.ofSeconds(30).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // rows offered while the writer was exiting
+        List<GenerationHistory> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) flush(rest);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stop after the web server (lower phase stops later) so requests finishing during graceful shutdown are flushed
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
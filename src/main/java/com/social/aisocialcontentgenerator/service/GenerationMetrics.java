@@ -0,0 +1,119 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.util.GenerationKey;
+import com.social.aisocialcontentgenerator.util.PromptParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage instrumentation of the generation pipeline, all tagged with platform and plan:
+ * - generation.stage (timer, p50/p95/p99), stage = quota / prompt_build / llm / parse / history / usage_refund;
+ *   parse also carries path (PromptParser.ParsePath) and llm an outcome (success / error)
+ * - generation.parse.fallbacks: answers that did not parse the preferred way for their mode
+ *   (structured in structured-output mode, bare JSON otherwise), by the path that won
+ * - llm.errors: failed LLM calls by status (HTTP status code, timeout, or other)
+ * Platforms are tagged by canonical name for the known networks and "other" beyond them, so free-form
+ * input cannot blow up the number of series.
+ */
+@Component
+public class GenerationMetrics {
+
+    private static final Set<String> KNOWN_PLATFORMS = Set.of("instagram", "facebook", "x", "linkedin", "youtube",
+            "tiktok", "pinterest", "threads");
+
+    private final MeterRegistry meterRegistry;
+
+    public GenerationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(String stage, String platform, Plan plan, Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            stage(stage, platform, plan).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void time(String stage, String platform, Plan plan, Runnable body) {
+        time(stage, platform, plan, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public void llmCall(String platform, Plan plan, Duration latency, Throwable error) {
+        stage("llm", platform, plan, "outcome", error == null ? "success" : "error").record(latency);
+        if (error == null) return;
+        Counter.builder("llm.errors")
+                .description("Failed LLM calls by HTTP status (or timeout / other)")
+                .tags("status", status(error), "platform", platformTag(platform), "plan", planTag(plan))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Parse {@code modelText} (structured or heuristic), timing it and counting fallbacks.
+     */
+    public PromptParser.Parsed parse(String modelText, boolean structured, String platform, Plan plan) {
+        long start = System.nanoTime();
+        PromptParser.Parsed parsed = structured
+                ? PromptParser.parseStructuredWithPath(modelText)
+                : PromptParser.parseWithPath(modelText);
+        long elapsed = System.nanoTime() - start;
+
+        stage("parse", platform, plan, "path", parsed.path().tag()).record(elapsed, TimeUnit.NANOSECONDS);
+        PromptParser.ParsePath preferred = structured ? PromptParser.ParsePath.STRUCTURED : PromptParser.ParsePath.JSON;
+        if (parsed.path() != preferred) {
+            Counter.builder("generation.parse.fallbacks")
+                    .description("Model answers that did not parse the preferred way, by the path that won")
+                    .tags("path", parsed.path().tag(), "platform", platformTag(platform), "plan", planTag(plan))
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return parsed;
+    }
+
+    private Timer stage(String stage, String platform, Plan plan, String... extraTags) {
+        return Timer.builder("generation.stage")
+                .description("Time spent in each stage of a generation")
+                .tags("stage", stage, "platform", platformTag(platform), "plan", planTag(plan))
+                .tags(extraTags)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    static String platformTag(String platform) {
+        if (platform == null) return "none";
+        if (platform.indexOf('+') >= 0) return "multi";
+        String canonical = GenerationKey.platform(platform);
+        return KNOWN_PLATFORMS.contains(canonical) ? canonical : "other";
+    }
+
+    private static String planTag(Plan plan) {
+        return plan == null ? "NONE" : plan.name();
+    }
+
+    // the LLM layers wrap the HTTP error (HttpGeminiService.toLlmException), so look down the cause chain
+    static String status(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException wre) return String.valueOf(wre.getStatusCode().value());
+            if (t instanceof ResponseStatusException rse) return String.valueOf(rse.getStatusCode().value());
+            if (t instanceof TimeoutException) return "timeout";
+            if (t.getCause() == t) break;
+        }
+        return "other";
+    }
+}
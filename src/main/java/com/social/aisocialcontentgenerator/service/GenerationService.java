@@ -1,92 +1,480 @@
 package com.social.aisocialcontentgenerator.service;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateItem;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateResponse;
 import com.social.aisocialcontentgenerator.dto.GenerateRequest;
 import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.GenerationStreamEvent;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.LlmUsage;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateResponse;
 import com.social.aisocialcontentgenerator.dto.enums.Plan;
 import com.social.aisocialcontentgenerator.entity.GenerationHistory;
-import com.social.aisocialcontentgenerator.entity.User;
-import com.social.aisocialcontentgenerator.repository.GenerationHistoryRepository;
-import com.social.aisocialcontentgenerator.repository.UserRepository;
-import com.social.aisocialcontentgenerator.util.AppConstants;
+import com.social.aisocialcontentgenerator.entity.GenerationOutput;
+import com.social.aisocialcontentgenerator.jfr.GenerationEvent;
+import com.social.aisocialcontentgenerator.util.GeminiSchema;
+import com.social.aisocialcontentgenerator.util.GenerationKey;
 import com.social.aisocialcontentgenerator.util.PromptFactory;
 import com.social.aisocialcontentgenerator.util.PromptParser;
-import org.springframework.cache.annotation.Cacheable;
+import com.social.aisocialcontentgenerator.util.StreamingPromptParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
-import java.time.LocalDate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Service
+@Slf4j
 public class GenerationService {
 
     private final LLMService llmService;
-    private final GenerationHistoryRepository historyRepository;
-    private final UserRepository userRepository;
+    private final GenerationHistoryWriter historyWriter;
+    private final UsageService usageService;
+    private final GenerationCache cache;
+    private final GenerationCoalescer coalescer;
+    private final GenerationCostTracker costTracker;
+    private final GenerationMetrics metrics;
+    // runs the blocking tail (parse, JPA) of async generations so it never lands on the HTTP client event loop
+    private final Executor taskExecutor;
+    private final Scheduler taskScheduler;
+    private final int batchMaxSize;
+    private final int batchParallelism;
+    // response schema + slim prompt instead of format instructions in prose; answers bind straight to the DTOs
+    private final boolean structuredOutput;
 
     public GenerationService(LLMService llmService,
-                             GenerationHistoryRepository historyRepository, UserRepository userRepository) {
+                             GenerationHistoryWriter historyWriter,
+                             UsageService usageService,
+                             GenerationCache cache, GenerationCoalescer coalescer,
+                             GenerationCostTracker costTracker, GenerationMetrics metrics,
+                             @Qualifier("applicationTaskExecutor") Executor taskExecutor,
+                             @Value("${app.generation.batch.max-size:50}") int batchMaxSize,
+                             @Value("${app.generation.batch.parallelism:16}") int batchParallelism,
+                             @Value("${llm.structured-output.enabled:true}") boolean structuredOutput) {
         this.llmService = llmService;
-        this.historyRepository = historyRepository;
-        this.userRepository = userRepository;
+        this.historyWriter = historyWriter;
+        this.usageService = usageService;
+        this.cache = cache;
+        this.coalescer = coalescer;
+        this.costTracker = costTracker;
+        this.metrics = metrics;
+        this.taskExecutor = taskExecutor;
+        this.taskScheduler = Schedulers.fromExecutor(taskExecutor);
+        this.batchMaxSize = batchMaxSize;
+        this.batchParallelism = batchParallelism;
+        this.structuredOutput = structuredOutput;
     }
 
-    @Cacheable(value = "generations", key = "#req.platform + ':' + #req.industry + ':' + #req.tone + ':' + (#req.keywords==null? '': #req.keywords)")
-    public GenerateResponse generateForUser(String email, GenerateRequest req) {
+    public GenerateResponse generateForUser(AuthPrincipal principal, GenerateRequest req) {
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long userId = requireUserId(principal);
 
-        enforceUsageLimit(user);
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        reserve(userId, 1, req.getPlatform(), principal.getPlan());
+        try {
+            return generateContent(req, userId, principal.getPlan(), event);
+        } catch (RuntimeException ex) {
+            refund(userId, 1, req.getPlatform(), principal.getPlan());
+            commit(event, "sync", req.getPlatform(), principal.getPlan(), null, null);
+            throw ex;
+        }
+    }
+
+    /**
+     * Async variant of {@link #generateForUser}. Quota reservation runs on the caller thread;
+     * the LLM call holds no thread while in flight, and parsing and history run on the
+     * application task executor once the model answers. A failed generation refunds its quota.
+     */
+    public CompletableFuture<GenerateResponse> generateForUserAsync(AuthPrincipal principal, GenerateRequest req) {
+
+        Long userId = requireUserId(principal);
+
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        reserve(userId, 1, req.getPlatform(), principal.getPlan());
+
+        return modelTextFor(req, userId, principal.getPlan())
+                .onErrorMap(GenerationService::generationFailed)
+                .toFuture()
+                .thenApplyAsync(answer -> {
+                    PromptParser.Parsed parsed = parse(answer.text(), req.getPlatform(), principal.getPlan());
+                    saveHistory(req, userId, principal.getPlan(), parsed, answer.text(), answer.usage(), answer.latency());
+                    commit(event, "async", req.getPlatform(), principal.getPlan(), answer, parsed.path().tag());
+                    return parsed.response();
+                }, taskExecutor)
+                .whenComplete((parsed, ex) -> {
+                    if (ex == null) return;
+                    refund(userId, 1, req.getPlatform(), principal.getPlan());
+                    commit(event, "async", req.getPlatform(), principal.getPlan(), null, null);
+                });
+    }
+
+    /**
+     * Streaming variant of {@link #generateForUser}: captions, hashtags and ideas are emitted as soon as
+     * they are complete in the model output, followed by a final "done" event carrying the full response.
+     * Quota is reserved up front and refunded if the stream fails or the client goes away before
+     * completion; history is persisted once the stream completes.
+     */
+    public Flux<GenerationStreamEvent> streamForUser(AuthPrincipal principal, GenerateRequest req) {
+
+        Long userId = requireUserId(principal);
+
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        reserve(userId, 1, req.getPlatform(), principal.getPlan());
+
+        String prompt = metrics.time("prompt_build", req.getPlatform(), principal.getPlan(), () -> PromptFactory.buildPrompt(req));
+
+        return Flux.defer(() -> {
+            StreamingPromptParser parser = new StreamingPromptParser();
+            AtomicBoolean completed = new AtomicBoolean();
+            long start = System.nanoTime();
+            return llmService.streamModel(prompt, userId, principal.getPlan())
+                    .doOnError(ex -> metrics.llmCall(req.getPlatform(), principal.getPlan(),
+                            Duration.ofNanos(System.nanoTime() - start), ex))
+                    .concatMapIterable(parser::feed)
+                    .concatWith(Mono.fromCallable(() -> completeStream(req, userId, principal.getPlan(), parser.text(),
+                                    Duration.ofNanos(System.nanoTime() - start), completed, event))
+                            // JPA work must not run on the HTTP client event loop
+                            .subscribeOn(taskScheduler))
+                    .doFinally(signal -> {
+                        if (completed.get()) return;
+                        refund(userId, 1, req.getPlatform(), principal.getPlan());
+                        commit(event, "stream", req.getPlatform(), principal.getPlan(), null, null);
+                    });
+        }).onErrorResume(ex -> {
+            log.error("Streaming generation failed", ex);
+            return Flux.just(new GenerationStreamEvent(GenerationStreamEvent.ERROR, "Generation failed: " + ex.getMessage()));
+        });
+    }
+
+    /**
+     * Batch variant for accounts generating for many profiles at once.
+     * - Entries with the same canonical key (GenerationKey) are generated once and share the result.
+     * - Quota is reserved once, up front, for every distinct entry; failed entries are refunded.
+     * - Distinct entries run concurrently, at most app.generation.batch.parallelism LLM calls at a time,
+     *   so the batch takes about as long as its slowest entry rather than the sum of all of them.
+     * Results come back in request order; a failing entry carries an error instead of failing the batch.
+     */
+    public CompletableFuture<BatchGenerateResponse> generateBatchForUser(AuthPrincipal principal, List<GenerateRequest> requests) {
+
+        Long userId = requireUserId(principal);
+
+        if (requests.size() > batchMaxSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch can hold at most " + batchMaxSize + " requests");
+        }
+
+        // slots[i] = position of request i among the distinct requests
+        Map<String, Integer> distinctByKey = new HashMap<>();
+        List<GenerateRequest> distinct = new ArrayList<>();
+        int[] slots = new int[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            GenerateRequest req = requests.get(i);
+            Integer slot = distinctByKey.putIfAbsent(GenerationKey.of(req), distinct.size());
+            if (slot == null) {
+                slot = distinct.size();
+                distinct.add(req);
+            }
+            slots[i] = slot;
+        }
+
+        reserve(userId, distinct.size(), null, principal.getPlan());
+
+        return Flux.fromIterable(distinct)
+                .flatMapSequential(req -> generateBatchEntry(req, userId, principal.getPlan()), batchParallelism)
+                .collectList()
+                .map(outcomes -> {
+                    int failed = (int) outcomes.stream().filter(o -> o.getError() != null).count();
+                    if (failed > 0) refund(userId, failed, null, principal.getPlan());
+
+                    List<BatchGenerateItem> results = new ArrayList<>(slots.length);
+                    for (int i = 0; i < slots.length; i++) {
+                        BatchGenerateItem outcome = outcomes.get(slots[i]);
+                        results.add(new BatchGenerateItem(i, outcome.getResponse(), outcome.getError()));
+                    }
+                    return new BatchGenerateResponse(results);
+                })
+                .toFuture();
+    }
+
+    // never errors: a failure becomes an item carrying the error message
+    private Mono<BatchGenerateItem> generateBatchEntry(GenerateRequest req, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            GenerationEvent event = new GenerationEvent();
+            event.begin();
+            return modelTextFor(req, userId, plan)
+                    .publishOn(taskScheduler)
+                    .map(answer -> {
+                        PromptParser.Parsed parsed = parse(answer.text(), req.getPlatform(), plan);
+                        saveHistory(req, userId, plan, parsed, answer.text(), answer.usage(), answer.latency());
+                        commit(event, "batch", req.getPlatform(), plan, answer, parsed.path().tag());
+                        return new BatchGenerateItem(-1, parsed.response(), null);
+                    })
+                    .onErrorResume(ex -> {
+                        log.warn("Batch entry failed", ex);
+                        commit(event, "batch", req.getPlatform(), plan, null, null);
+                        return Mono.just(new BatchGenerateItem(-1, null, "Generation failed: " + ex.getMessage()));
+                    });
+        });
+    }
+
+    /**
+     * Several platforms, one LLM call: the prompt asks for a JSON object keyed by platform and the answer
+     * is split back into one response per platform. Usage is charged per platform (platforms the model
+     * left out are refunded) and every platform gets its own history row and single-platform cache entry,
+     * exactly as if it had been generated on its own.
+     */
+    public CompletableFuture<MultiPlatformGenerateResponse> generateMultiPlatformForUser(AuthPrincipal principal,
+                                                                                        MultiPlatformGenerateRequest req) {
+
+        Long userId = requireUserId(principal);
+
+        List<String> platforms = GenerationKey.platforms(req.getPlatforms());
+        if (platforms.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one platform is required");
+        }
 
-        GenerateResponse response = generateContent(req,user.getId());
+        String multi = String.join("+", platforms);
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        reserve(userId, platforms.size(), multi, principal.getPlan());
 
-        user.setDailyUsage(user.getDailyUsage() + 1);
-        userRepository.save(user);
+        Mono<ModelAnswer> answer = structuredOutput
+                ? modelTextFor(GenerationKey.of(req), () -> PromptFactory.buildStructuredMultiPlatformPrompt(req, platforms),
+                        GeminiSchema.forPlatforms(platforms), "multi", multi, userId, principal.getPlan())
+                : modelTextFor(GenerationKey.of(req), () -> PromptFactory.buildMultiPlatformPrompt(req, platforms),
+                        null, "multi", multi, userId, principal.getPlan());
 
-        return response;
+        return answer
+                .onErrorMap(GenerationService::generationFailed)
+                .toFuture()
+                .thenApplyAsync(modelAnswer -> {
+                    Map<String, GenerateResponse> results = new LinkedHashMap<>();
+                    List<String> missing = new ArrayList<>();
+                    Set<String> parsePaths = new LinkedHashSet<>();
+                    Map<String, String> sections = PromptParser.splitByPlatform(modelAnswer.text(), platforms);
+                    int answered = (int) sections.values().stream().filter(section -> section != null).count();
+                    if (answered == 0) {
+                        // the multi answer was cached before it could be split; an unusable one must not be served again
+                        cache.invalidate(cacheKey(GenerationKey.of(req), principal.getPlan()));
+                    }
+                    int index = 0;
+                    for (Map.Entry<String, String> entry : sections.entrySet()) {
+                        String platform = entry.getKey();
+                        String section = entry.getValue();
+                        if (section == null) {
+                            missing.add(platform);
+                            continue;
+                        }
+                        GenerateRequest single = req.forPlatform(platform);
+                        PromptParser.Parsed parsed = parse(section, platform, principal.getPlan());
+                        results.put(platform, parsed.response());
+                        parsePaths.add(parsed.path().tag());
+                        cache.put(cacheKey(GenerationKey.of(single), principal.getPlan()), section);
+                        saveHistory(single, userId, principal.getPlan(), parsed, section, share(modelAnswer.usage(), index++, answered),
+                                modelAnswer.latency());
+                    }
+                    if (!missing.isEmpty()) {
+                        log.warn("Model output lacks platforms {}", missing);
+                        refund(userId, missing.size(), multi, principal.getPlan());
+                    }
+                    commit(event, "multi", multi, principal.getPlan(), modelAnswer, String.join(",", parsePaths));
+                    return new MultiPlatformGenerateResponse(results, missing);
+                }, taskExecutor)
+                .whenComplete((response, ex) -> {
+                    if (ex == null) return;
+                    refund(userId, platforms.size(), multi, principal.getPlan());
+                    commit(event, "multi", multi, principal.getPlan(), null, null);
+                });
     }
 
-    private GenerateResponse generateContent(GenerateRequest req, Long userId) {
+    // streamed answers report no token usage; only their latency is accounted
+    private GenerationStreamEvent completeStream(GenerateRequest req, Long userId, Plan plan, String modelText,
+                                                 Duration latency, AtomicBoolean completed, GenerationEvent event) {
+        metrics.llmCall(req.getPlatform(), plan, latency, null);
+        PromptParser.Parsed parsed = metrics.parse(modelText, false, req.getPlatform(), plan);
+        cache.put(cacheKey(GenerationKey.of(req), plan), modelText);
+        costTracker.record(userId, plan, "stream", false, null, latency);
+        saveHistory(req, userId, plan, parsed, modelText, null, latency);
+        completed.set(true);
+        commit(event, "stream", req.getPlatform(), plan, new ModelAnswer(modelText, null, latency, false), parsed.path().tag());
+
+        return new GenerationStreamEvent(GenerationStreamEvent.DONE, parsed.response());
+    }
+
+    private GenerateResponse generateContent(GenerateRequest req, Long userId, Plan plan, GenerationEvent event) {
         try {
-            String prompt = PromptFactory.buildPrompt(req);
-            // call Gemini LLM via HttpGeminiService
-            String modelText = llmService.callModel(prompt, userId);
-
-            // modelText is the inner text from Gemini (expected JSON or text containing JSON)
-            GenerateResponse parsed = PromptParser.parse(modelText);
-
-            // Save raw modelText and metadata to DB
-            GenerationHistory history = new GenerationHistory();
-            history.setUserId(userId);
-            history.setPlatform(req.getPlatform());
-            history.setIndustry(req.getIndustry());
-            history.setTone(req.getTone());
-            history.setKeywords(req.getKeywords());
-            history.setOutputJson(modelText);
-            historyRepository.save(history);
+            // call Gemini LLM via HttpGeminiService (or serve it from the cache)
+            ModelAnswer answer = modelTextFor(req, userId, plan).block();
 
-            return parsed;
+            // the text is the inner text from Gemini (expected JSON or text containing JSON)
+            PromptParser.Parsed parsed = parse(answer.text(), req.getPlatform(), plan);
+
+            saveHistory(req, userId, plan, parsed, answer.text(), answer.usage(), answer.latency());
+            commit(event, "sync", req.getPlatform(), plan, answer, parsed.path().tag());
+
+            return parsed.response();
         } catch (Exception ex) {
-            throw new RuntimeException("Generation failed: " + ex.getMessage(), ex);
+            throw generationFailed(ex);
         }
     }
 
-    private void enforceUsageLimit(User user) {
-        LocalDate today = LocalDate.now();
+    /**
+     * Model text for the request: from the generation cache if present, otherwise from the LLM.
+     * Identical concurrent misses share one in-flight call; its result is cached once by the leader.
+     * Each caller still parses, saves history and counts usage. Tokens and latency are accounted to the
+     * caller that made the call only (see ModelAnswer).
+     */
+    private Mono<ModelAnswer> modelTextFor(GenerateRequest req, Long userId, Plan plan) {
+        return Mono.defer(() -> structuredOutput
+                ? modelTextFor(GenerationKey.of(req), () -> PromptFactory.buildStructuredPrompt(req), GeminiSchema.GENERATE_RESPONSE, "single", req.getPlatform(), userId, plan)
+                : modelTextFor(GenerationKey.of(req), () -> PromptFactory.buildPrompt(req), null, "single", req.getPlatform(), userId, plan));
+    }
+
+    private Mono<ModelAnswer> modelTextFor(String generationKey, Supplier<String> prompt, JsonNode responseSchema, String shape,
+                                           String platform, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            String key = cacheKey(generationKey, plan);
+            String cached = cache.get(key);
+            if (cached != null) {
+                return Mono.just(new ModelAnswer(cached, null, null, true));
+            }
+            // set only when this caller leads the coalesced call
+            AtomicReference<ModelAnswer> own = new AtomicReference<>();
+            return coalescer.execute(key, () -> {
+                        String text = metrics.time("prompt_build", platform, plan, prompt);
+                        long start = System.nanoTime();
+                        return llmService.callModelForResult(text, responseSchema, userId, plan)
+                                .doOnError(ex -> metrics.llmCall(platform, plan, Duration.ofNanos(System.nanoTime() - start), ex))
+                                .doOnNext(result -> {
+                                    Duration latency = Duration.ofNanos(System.nanoTime() - start);
+                                    metrics.llmCall(platform, plan, latency, null);
+                                    costTracker.record(userId, plan, shape, responseSchema != null, result.getUsage(), latency);
+                                    own.set(new ModelAnswer(result.getText(), result.getUsage(), latency, false));
+                                    cache.put(key, result.getText());
+                                })
+                                .map(LlmResult::getText);
+                    })
+                    .map(text -> own.get() != null ? own.get() : new ModelAnswer(text, null, null, false))
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response from LLM")));
+        });
+    }
+
+    /**
+     * Model text plus the usage and latency of the LLM call that produced it, when this caller made
+     * that call; both are null for cache hits and coalesced followers, which cost nothing.
+     */
+    private record ModelAnswer(String text, LlmUsage usage, Duration latency, boolean cacheHit) {
+    }
+
+    // one multi-platform call split over its rows: tokens divided evenly, the remainder on the first row
+    private static LlmUsage share(LlmUsage usage, int index, int parts) {
+        if (usage == null || parts <= 1) return usage;
+        return new LlmUsage(part(usage.getPromptTokens(), index, parts), part(usage.getCandidatesTokens(), index, parts),
+                part(usage.getTotalTokens(), index, parts), part(usage.getCachedContentTokens(), index, parts),
+                part(usage.getThoughtsTokens(), index, parts));
+    }
+
+    private static int part(int tokens, int index, int parts) {
+        return tokens / parts + (index == 0 ? tokens % parts : 0);
+    }
+
+    // cached and coalesced answers may come from either mode (or the stream); parseStructured falls back to the heuristics
+    private PromptParser.Parsed parse(String modelText, String platform, Plan plan) {
+        return metrics.parse(modelText, structuredOutput, platform, plan);
+    }
 
-        if (user.getLastUsageDate() == null || !user.getLastUsageDate().equals(today)) {
-            user.setDailyUsage(0);
-            user.setLastUsageDate(today);
+    // JFR GenerationEvent; fields are only filled in when a recording has the event enabled.
+    // answer == null: the generation failed
+    private static void commit(GenerationEvent event, String kind, String platform, Plan plan, ModelAnswer answer, String parsePath) {
+        if (!event.shouldCommit()) return;
+        event.kind = kind;
+        event.platform = platform;
+        event.plan = plan == null ? null : plan.name();
+        event.succeeded = answer != null;
+        if (answer != null) {
+            event.cacheHit = answer.cacheHit();
+            event.llmMillis = answer.latency() == null ? 0 : answer.latency().toMillis();
+            event.parsePath = parsePath;
+            event.responseLength = answer.text() == null ? 0 : answer.text().length();
         }
+        event.commit();
+    }
+
+    private void reserve(Long userId, int amount, String platform, Plan plan) {
+        metrics.time("quota", platform, plan, () -> usageService.reserve(userId, amount));
+    }
+
+    private void refund(Long userId, int amount, String platform, Plan plan) {
+        metrics.time("usage_refund", platform, plan, () -> usageService.refund(userId, amount));
+    }
 
-        if (user.getPlan() == Plan.FREE && user.getDailyUsage() >= AppConstants.FREE_DAILY_LIMIT) {
-            throw new ResponseStatusException(
-                    HttpStatus.FORBIDDEN,
-                    "Daily limit reached. Upgrade to PRO for unlimited access."
-            );
+    // plans routed to different models must not share results (see LLMService.modelTier)
+    private String cacheKey(String generationKey, Plan plan) {
+        String tier = llmService.modelTier(plan);
+        return tier.isEmpty() ? generationKey : tier + '#' + generationKey;
+    }
+
+    // load shedding (429 / 503 from the LLM guard) keeps its status instead of becoming a 500
+    private static RuntimeException generationFailed(Throwable ex) {
+        if (ex instanceof ResponseStatusException rse) return rse;
+        return new RuntimeException("Generation failed: " + ex.getMessage(), ex);
+    }
+
+    // userId comes from the token claims (JwtAuthFilter), no user lookup per generation
+    private static Long requireUserId(AuthPrincipal principal) {
+        if (principal == null || principal.getUserId() == null) {
+            throw new RuntimeException("User not found");
         }
+        return principal.getUserId();
+    }
 
+    // Save the parsed answer and metadata to DB (write-behind: the response does not wait for the insert or its compression)
+    private void saveHistory(GenerateRequest req, Long userId, Plan plan, PromptParser.Parsed parsed, String modelText,
+                             LlmUsage usage, Duration latency) {
+        GenerationHistory history = new GenerationHistory();
+        history.setUserId(userId);
+        history.setPlatform(req.getPlatform());
+        history.setIndustry(req.getIndustry());
+        history.setTone(req.getTone());
+        history.setKeywords(req.getKeywords());
+        if (parsed.path() == PromptParser.ParsePath.PLAIN_TEXT) {
+            // a heuristic parse is mostly placeholders, not what the model said: keep the raw text instead
+            history.setOutputJson(modelText);
+        } else {
+            history.setOutput(GenerationOutput.of(parsed.response()));
+        }
+        if (usage != null) {
+            history.setPromptTokens(usage.getPromptTokens());
+            history.setCandidatesTokens(usage.getCandidatesTokens());
+            history.setTotalTokens(usage.getTotalTokens());
+            history.setCachedTokens(usage.getCachedContentTokens());
+        }
+        if (latency != null) history.setModelLatencyMs(latency.toMillis());
+        metrics.time("history", req.getPlatform(), plan, () -> historyWriter.enqueue(history));
     }
 }
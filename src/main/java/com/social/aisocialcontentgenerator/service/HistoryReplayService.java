@@ -0,0 +1,74 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.repository.GenerationHistoryRepository;
+import com.social.aisocialcontentgenerator.util.GenerationKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Replays generation_history against two cache keys to measure what canonicalization buys:
+ * - raw: the old @Cacheable SpEL key (platform:industry:tone:keywords, verbatim)
+ * - canonical: GenerationKey
+ * A row counts as a hit when the same key was seen within the generation cache TTL before it.
+ * Unbounded (no eviction), so the numbers are an upper bound for both strategies.
+ */
+@Service
+@RequiredArgsConstructor
+public class HistoryReplayService {
+
+    private final GenerationHistoryRepository historyRepository;
+
+    @Value("${app.generation.cache.ttl:1h}")
+    private Duration ttl;
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> replay(Duration window) {
+        Map<String, Instant> rawSeen = new HashMap<>();
+        Map<String, Instant> canonicalSeen = new HashMap<>();
+        long rows = 0, rawHits = 0, canonicalHits = 0;
+
+        try (Stream<GenerationHistoryRepository.RequestView> stream =
+                     historyRepository.streamByCreatedAtAfterOrderByCreatedAtAsc(Instant.now().minus(window))) {
+            for (GenerationHistoryRepository.RequestView row : (Iterable<GenerationHistoryRepository.RequestView>) stream::iterator) {
+                rows++;
+                Instant at = row.getCreatedAt();
+                String raw = row.getPlatform() + ':' + row.getIndustry() + ':' + row.getTone() + ':'
+                        + (row.getKeywords() == null ? "" : row.getKeywords());
+                if (isHit(rawSeen.put(raw, at), at)) rawHits++;
+                if (isHit(canonicalSeen.put(GenerationKey.of(toRequest(row)), at), at)) canonicalHits++;
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("rows", rows);
+        out.put("ttlSeconds", ttl.toSeconds());
+        out.put("rawDistinctKeys", rawSeen.size());
+        out.put("canonicalDistinctKeys", canonicalSeen.size());
+        out.put("rawHitRate", rows == 0 ? 0.0 : (double) rawHits / rows);
+        out.put("canonicalHitRate", rows == 0 ? 0.0 : (double) canonicalHits / rows);
+        return out;
+    }
+
+    private boolean isHit(Instant previous, Instant at) {
+        return previous != null && at != null && !previous.plus(ttl).isBefore(at);
+    }
+
+    private static GenerateRequest toRequest(GenerationHistoryRepository.RequestView row) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform(row.getPlatform());
+        req.setIndustry(row.getIndustry());
+        req.setTone(row.getTone());
+        req.setKeywords(row.getKeywords());
+        return req;
+    }
+}
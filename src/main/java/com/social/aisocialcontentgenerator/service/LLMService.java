@@ -1,5 +1,12 @@
 package com.social.aisocialcontentgenerator.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 public interface LLMService {
     /**
      * Call the LLM with the given prompt and return the raw model text output.
@@ -11,4 +18,73 @@ public interface LLMService {
      * @throws Exception on network / parse error
      */
     String callModel(String prompt, Long userId) throws Exception;
+
+    /**
+     * Non-blocking variant of {@link #callModel}. Nothing is sent until the returned Mono is subscribed,
+     * and no caller thread is held while the model is working.
+     * Default implementation runs the blocking call on the bounded elastic scheduler.
+     *
+     * @param prompt prompt text
+     * @param userId optional userId (can be null) for routing/quota
+     * @return raw model text, or an error signal on network / parse error
+     */
+    default Mono<String> callModelAsync(String prompt, Long userId) {
+        return Mono.fromCallable(() -> callModel(prompt, userId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Stream the model text as it is produced. Concatenating every emitted chunk yields the
+     * same text {@link #callModel} would return.
+     * Default implementation emits the full text as a single chunk.
+     *
+     * @param prompt prompt text
+     * @param userId optional userId (can be null) for routing/quota
+     * @return model text chunks in arrival order
+     */
+    default Flux<String> streamModel(String prompt, Long userId) {
+        return Mono.fromCallable(() -> callModel(prompt, userId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flux();
+    }
+
+    /**
+     * Plan-aware variant of {@link #callModelAsync(String, Long)}; implementations that route between
+     * models pick the model by plan. Default ignores the plan.
+     */
+    default Mono<String> callModelAsync(String prompt, Long userId, Plan plan) {
+        return callModelAsync(prompt, userId);
+    }
+
+    /**
+     * Like {@link #callModelAsync(String, Long, Plan)}, plus the token usage when the backend reports it.
+     * Default wraps the text without usage.
+     */
+    default Mono<LlmResult> callModelForResult(String prompt, Long userId, Plan plan) {
+        return callModelAsync(prompt, userId, plan).map(LlmResult::of);
+    }
+
+    /**
+     * Structured output: like {@link #callModelForResult(String, Long, Plan)}, asking the model for JSON
+     * matching {@code responseSchema} (Gemini responseSchema, see GeminiSchema). A null schema means free text.
+     * Default ignores the schema, so the prompt must still describe the expected JSON.
+     */
+    default Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+        return callModelForResult(prompt, userId, plan);
+    }
+
+    /**
+     * Plan-aware variant of {@link #streamModel(String, Long)}. Default ignores the plan.
+     */
+    default Flux<String> streamModel(String prompt, Long userId, Plan plan) {
+        return streamModel(prompt, userId);
+    }
+
+    /**
+     * Identifies which models may answer for the plan. Requests whose plans map to the same tier can
+     * share cached / in-flight results; an empty tier means the plan does not matter.
+     */
+    default String modelTier(Plan plan) {
+        return "";
+    }
 }
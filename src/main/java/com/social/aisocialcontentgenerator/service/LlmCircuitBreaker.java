@@ -0,0 +1,156 @@
+package com.social.aisocialcontentgenerator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker for the LLM provider.
+ * - CLOSED: calls pass; the outcomes of the last window-size calls are kept. Once at least min-calls are
+ *   recorded and the failure share reaches failure-rate-threshold, the breaker opens.
+ * - OPEN: calls fail fast for open-duration.
+ * - HALF_OPEN: up to half-open-probes calls go through; all of them succeeding closes the breaker,
+ *   any failure opens it again.
+ */
+@Component
+@Slf4j
+public class LlmCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    public enum Permit {
+        REJECTED, NORMAL, PROBE
+    }
+
+    private final boolean[] window;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failures;
+    private long openedAtNanos;
+    private Instant openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public LlmCircuitBreaker(@Value("${llm.circuit-breaker.window-size:50}") int windowSize,
+                             @Value("${llm.circuit-breaker.min-calls:20}") int minCalls,
+                             @Value("${llm.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${llm.circuit-breaker.open-duration:30s}") Duration openDuration,
+                             @Value("${llm.circuit-breaker.half-open-probes:3}") int halfOpenProbes,
+                             MeterRegistry meterRegistry) {
+        this.window = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.meterRegistry = meterRegistry;
+
+        this.rejected = Counter.builder("llm.circuit.rejected")
+                .description("LLM calls failed fast because the circuit was open").register(meterRegistry);
+        Gauge.builder("llm.circuit.state", this, b -> b.state().ordinal())
+                .description("0 = closed, 1 = half open, 2 = open").register(meterRegistry);
+    }
+
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                rejected.increment();
+                return Permit.REJECTED;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                rejected.increment();
+                return Permit.REJECTED;
+            }
+            probesInFlight++;
+            return Permit.PROBE;
+        }
+        return Permit.NORMAL;
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probesInFlight--;
+            if (state == State.HALF_OPEN && ++probeSuccesses >= halfOpenProbes) transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probesInFlight--;
+            if (state == State.HALF_OPEN) transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minCalls && failures >= failureRateThreshold * calls) transition(State.OPEN);
+        }
+    }
+
+    // cancelled or rejected downstream: no verdict on the provider
+    public synchronized void onIgnored(Permit permit) {
+        if (permit == Permit.PROBE) probesInFlight--;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", state);
+        snapshot.put("calls", calls);
+        snapshot.put("failures", failures);
+        snapshot.put("failureRate", calls == 0 ? 0d : (double) failures / calls);
+        snapshot.put("openedAt", openedAt);
+        snapshot.put("rejected", (long) rejected.count());
+        return snapshot;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[next]) failures--;
+        } else {
+            calls++;
+        }
+        window[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void transition(State to) {
+        log.warn("LLM circuit breaker {} -> {}", state, to);
+        state = to;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (to == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            openedAt = Instant.now();
+        } else if (to == State.CLOSED) {
+            calls = 0;
+            failures = 0;
+            next = 0;
+        }
+        Counter.builder("llm.circuit.transitions").tag("to", to.name())
+                .description("Circuit breaker state changes").register(meterRegistry).increment();
+    }
+}
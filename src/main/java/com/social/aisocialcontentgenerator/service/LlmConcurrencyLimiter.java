@@ -0,0 +1,103 @@
+package com.social.aisocialcontentgenerator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive (AIMD) limit on concurrent LLM calls.
+ * - additive increase: every fast successful call raises the limit by 1/limit (about +1 per limit's worth
+ *   of calls), but only while the limit is actually in use
+ * - multiplicative decrease: a call slower than latency-threshold, or one that failed with an overload
+ *   signal (429, 5xx, timeout), multiplies the limit by backoff
+ * Calls beyond the limit are rejected immediately instead of queueing behind a slow provider.
+ */
+@Component
+public class LlmConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoff;
+    private final long latencyThresholdNanos;
+    private final Counter rejected;
+
+    private double limit;
+    private int inFlight;
+
+    public LlmConcurrencyLimiter(@Value("${llm.limiter.initial-limit:20}") int initialLimit,
+                                 @Value("${llm.limiter.min-limit:2}") int minLimit,
+                                 @Value("${llm.limiter.max-limit:200}") int maxLimit,
+                                 @Value("${llm.limiter.backoff:0.9}") double backoff,
+                                 @Value("${llm.limiter.latency-threshold:10s}") Duration latencyThreshold,
+                                 MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoff = backoff;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = initialLimit;
+
+        this.rejected = Counter.builder("llm.limiter.rejected")
+                .description("LLM calls rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("llm.limiter.limit", this, LlmConcurrencyLimiter::limit)
+                .description("Current adaptive limit on concurrent LLM calls").register(meterRegistry);
+        Gauge.builder("llm.limiter.in_flight", this, LlmConcurrencyLimiter::inFlight)
+                .description("LLM calls in flight").register(meterRegistry);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected.increment();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void onSuccess(long latencyNanos) {
+        inFlight--;
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized void onOverload() {
+        inFlight--;
+        decrease();
+    }
+
+    // failed for reasons that say nothing about provider load (bad request, cancelled)
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("limit", (int) limit);
+        snapshot.put("inFlight", inFlight);
+        snapshot.put("minLimit", minLimit);
+        snapshot.put("maxLimit", maxLimit);
+        snapshot.put("rejected", (long) rejected.count());
+        return snapshot;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoff);
+    }
+}
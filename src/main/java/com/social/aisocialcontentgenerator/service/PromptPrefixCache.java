@@ -0,0 +1,172 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.LlmUsage;
+import com.social.aisocialcontentgenerator.util.PromptFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provider-side caching of the static prompt prefixes (PromptFactory.PREFIXES), e.g. Gemini cachedContents.
+ * - A prefix is registered once per backend, the first time a prompt starting with it is sent. Until the
+ *   handle exists, and while registration fails, prompts are sent in full as before.
+ * - With a handle, a call sends only the per-request suffix and references the prefix by handle.
+ * - A scheduled check extends handles that expire within refresh-before; a handle that cannot be extended
+ *   (or that a call reported as unusable) is dropped and registered again on the next prompt.
+ * - Every call's cached prompt tokens (explicit or the provider's implicit prefix caching) are recorded
+ *   as llm.prompt.cached_tokens.
+ * Providers only cache prefixes above a minimum size (Gemini 2.5 Flash: 1024 tokens); registering a smaller
+ * one fails, is logged once per retry-after and otherwise changes nothing.
+ */
+@Component
+@Slf4j
+public class PromptPrefixCache {
+
+    /**
+     * The provider side for one backend (model): creates and extends cached contents.
+     */
+    public interface Store {
+        Mono<Handle> create(String prefix, Duration ttl);
+
+        Mono<Handle> extend(String name, Duration ttl);
+    }
+
+    /** A registered prefix: the provider's name for it and when it expires. */
+    public record Handle(String name, Instant expireTime) {
+    }
+
+    /** The cached prefix of a prompt: reference {@code name}, send the prompt from {@code prefixLength} on. */
+    public record Match(String name, int prefixLength) {
+    }
+
+    // a handle this close to expiry is not handed out any more, so a call never references an expired cache
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(30);
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration refreshBefore;
+    private final Duration retryAfter;
+    private final List<String> prefixes = PromptFactory.PREFIXES;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final DistributionSummary cachedTokens;
+
+    public PromptPrefixCache(@Value("${llm.prompt-cache.enabled:false}") boolean enabled,
+                             @Value("${llm.prompt-cache.ttl:1h}") Duration ttl,
+                             @Value("${llm.prompt-cache.refresh-before:10m}") Duration refreshBefore,
+                             @Value("${llm.prompt-cache.retry-after:10m}") Duration retryAfter,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.refreshBefore = refreshBefore;
+        this.retryAfter = retryAfter;
+        this.cachedTokens = DistributionSummary.builder("llm.prompt.cached_tokens")
+                .baseUnit("tokens")
+                .description("Prompt tokens per LLM call served from a prompt cache instead of being processed again")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The live cached prefix of {@code prompt} on {@code store}, or null (send the prompt in full).
+     * The first sighting of a prefix starts its registration in the background.
+     */
+    public Match lookup(Store store, String prompt) {
+        if (!enabled) return null;
+        for (String prefix : prefixes) {
+            if (!prompt.startsWith(prefix)) continue;
+            String name = entries.computeIfAbsent(new Key(store, prefix), key -> new Entry(store, prefix)).nameOrRegister();
+            return name == null ? null : new Match(name, prefix.length());
+        }
+        return null;
+    }
+
+    /**
+     * A call referencing {@code match} failed; stop handing out the handle in case it is what failed.
+     */
+    public void invalidate(Store store, Match match) {
+        for (Entry entry : entries.values()) {
+            if (entry.store == store) entry.drop(match.name());
+        }
+    }
+
+    public void recordUsage(LlmUsage usage) {
+        if (usage != null) cachedTokens.record(usage.getCachedContentTokens());
+    }
+
+    @Scheduled(fixedDelayString = "${llm.prompt-cache.refresh-check:1m}")
+    public void refresh() {
+        if (!enabled) return;
+        for (Entry entry : entries.values()) entry.extendIfExpiring();
+    }
+
+    private record Key(Store store, String prefix) {
+    }
+
+    private final class Entry {
+        private final Store store;
+        private final String prefix;
+        private String name;
+        private Instant expireTime;
+        private boolean pending;
+        private Instant retryAt = Instant.MIN;
+
+        Entry(Store store, String prefix) {
+            this.store = store;
+            this.prefix = prefix;
+        }
+
+        synchronized String nameOrRegister() {
+            Instant now = Instant.now();
+            if (name != null && expireTime.isAfter(now.plus(EXPIRY_MARGIN))) return name;
+            if (!pending && !now.isBefore(retryAt)) {
+                pending = true;
+                store.create(prefix, ttl)
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("no cached content returned")))
+                        .subscribe(this::registered, this::registrationFailed);
+            }
+            return null;
+        }
+
+        synchronized void extendIfExpiring() {
+            if (name == null || pending || expireTime.isAfter(Instant.now().plus(refreshBefore))) return;
+            pending = true;
+            String extending = name;
+            store.extend(extending, ttl)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("no cached content returned")))
+                    .subscribe(this::registered, ex -> extensionFailed(extending, ex));
+        }
+
+        synchronized void drop(String failedName) {
+            if (failedName.equals(name)) name = null;
+        }
+
+        private synchronized void registered(Handle handle) {
+            pending = false;
+            name = handle.name();
+            expireTime = handle.expireTime();
+            log.debug("Prompt prefix ({} chars) cached as {} until {}", prefix.length(), name, expireTime);
+        }
+
+        private synchronized void registrationFailed(Throwable ex) {
+            pending = false;
+            retryAt = Instant.now().plus(retryAfter);
+            log.warn("Prompt prefix ({} chars) could not be cached, sending it in full for {}: {}",
+                    prefix.length(), retryAfter, ex.getMessage());
+        }
+
+        private synchronized void extensionFailed(String extending, Throwable ex) {
+            pending = false;
+            if (extending.equals(name)) name = null;
+            log.warn("Cached prompt prefix {} could not be extended, registering it again: {}", extending, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.repository.UserRepository;
+import com.social.aisocialcontentgenerator.util.AppConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+
+/**
+ * Daily generation quota, reserved before the LLM call and refunded if the generation fails.
+ * Each operation is a single conditional UPDATE, so concurrent requests from one user cannot
+ * overshoot FREE_DAILY_LIMIT and never rewrite the rest of the user row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UsageService {
+
+    private final UserRepository userRepository;
+
+    public void reserve(Long userId, int amount) {
+        int updated = userRepository.reserveDailyUsage(userId, amount, LocalDate.now(), Plan.FREE, AppConstants.FREE_DAILY_LIMIT);
+        if (updated == 0) {
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN,
+                    "Daily limit reached. Upgrade to PRO for unlimited access."
+            );
+        }
+    }
+
+    public void refund(Long userId, int amount) {
+        try {
+            userRepository.refundDailyUsage(userId, amount, LocalDate.now());
+        } catch (Exception e) {
+            // the user keeps a consumed unit; not worth failing the (already failed) request over
+            log.warn("Usage refund failed for user {}", userId, e);
+        }
+    }
+}
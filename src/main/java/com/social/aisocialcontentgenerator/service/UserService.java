@@ -2,23 +2,34 @@ package com.social.aisocialcontentgenerator.service;
 
 import com.social.aisocialcontentgenerator.entity.User;
 import com.social.aisocialcontentgenerator.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserService {
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
+    // runs the hash upgrade's UPDATE, so a slow database never holds a hashing thread
+    private final Executor taskExecutor;
+
+    public UserService(UserRepository userRepository,
+                       PasswordHasher passwordHasher,
+                       @Qualifier("applicationTaskExecutor") Executor taskExecutor) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.taskExecutor = taskExecutor;
+    }
 
     public User createUser(String email, String rawPassword) {
         User user = new User();
         user.setEmail(email);
-        user.setPasswordHash(passwordEncoder.encode(rawPassword));
+        user.setPasswordHash(passwordHasher.hash(rawPassword));
         return userRepository.save(user);
     }
 
@@ -27,7 +38,23 @@ public class UserService {
         var userOpt = userRepository.findByEmail(email);
         if (userOpt.isEmpty()) throw new RuntimeException("Invalid credentials");
         User user = userOpt.get();
-        if (!passwordEncoder.matches(rawPassword, user.getPasswordHash())) throw new RuntimeException("Invalid credentials");
+        if (!passwordHasher.matches(rawPassword, user.getPasswordHash())) throw new RuntimeException("Invalid credentials");
+        // hash made with an older (lower) cost factor: upgrade it now that we know the raw password
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            String oldHash = user.getPasswordHash();
+            // only if the hash is still the one we checked, so a concurrent password change wins
+            passwordHasher.rehashInBackground(rawPassword)
+                    .thenAcceptAsync(newHash -> userRepository.updatePasswordHash(user.getId(), oldHash, newHash), taskExecutor)
+                    .exceptionally(ex -> {
+                        if (ex.getCause() instanceof RejectedExecutionException) {
+                            // next login will try again
+                            log.debug("Password rehash skipped, hashing pool saturated");
+                        } else {
+                            log.warn("Password rehash failed", ex);
+                        }
+                        return null;
+                    });
+        }
         return user;
     }
 
@@ -5,8 +5,10 @@ import com.google.gson.JsonElement;
 import com.social.aisocialcontentgenerator.dto.enums.Plan;
 import com.google.gson.JsonObject;
 import com.social.aisocialcontentgenerator.entity.UserSubscription;
+import com.social.aisocialcontentgenerator.jfr.StripeWebhookEvent;
 import com.social.aisocialcontentgenerator.repository.UserRepository;
 import com.social.aisocialcontentgenerator.repository.UserSubscriptionRepository;
+import com.social.aisocialcontentgenerator.service.AccountCache;
 import com.social.aisocialcontentgenerator.service.BillingService;
 import com.stripe.exception.EventDataObjectDeserializationException;
 import com.stripe.exception.SignatureVerificationException;
@@ -23,6 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Optional;
 
@@ -34,6 +37,7 @@ public class BillingServiceImpl implements BillingService {
     private final Gson gson = new Gson();
     private final UserRepository userRepository;
     private final UserSubscriptionRepository subscriptionRepository;
+    private final AccountCache accountCache;
 
     @Value("${app.frontend.success-url}")
     private String successUrl;
@@ -70,13 +74,34 @@ public class BillingServiceImpl implements BillingService {
 
 
     public void handleEvent(String payload, String signature) {
-        final Event event;
+        // JFR: the fields are only filled in when a recording has StripeWebhookEvent enabled
+        StripeWebhookEvent jfrEvent = new StripeWebhookEvent();
+        jfrEvent.begin();
+        String outcome = "failed";
+        Event event = null;
         try {
-            event = Webhook.constructEvent(payload, signature, webhookSecret);
-        } catch (SignatureVerificationException e) {
-            throw new RuntimeException("Invalid Stripe signature", e);
+            try {
+                event = Webhook.constructEvent(payload, signature, webhookSecret);
+            } catch (SignatureVerificationException e) {
+                outcome = "invalid_signature";
+                throw new RuntimeException("Invalid Stripe signature", e);
+            }
+            outcome = dispatch(event);
+        } finally {
+            if (jfrEvent.shouldCommit()) {
+                if (event != null) {
+                    jfrEvent.eventType = event.getType();
+                    jfrEvent.eventId = event.getId();
+                }
+                jfrEvent.outcome = outcome;
+                jfrEvent.payloadSize = payload == null ? 0 : payload.getBytes(StandardCharsets.UTF_8).length;
+                jfrEvent.commit();
+            }
         }
+    }
 
+    // returns the outcome recorded on StripeWebhookEvent
+    private String dispatch(Event event) {
         // Stripe java may fail to deserialize when API versions differ.
         // So use raw JSON safely.
         EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
@@ -85,7 +110,7 @@ public class BillingServiceImpl implements BillingService {
         if (rawJson == null || rawJson.isBlank()) {
             // If this happens, just log and return 200 in controller (don’t crash).
             log.warn("Stripe webhook has no rawJson. eventId=" + event.getId() + " type=" + event.getType());
-            return;
+            return "no_payload";
         }
 
         switch (event.getType()) {
@@ -102,8 +127,10 @@ public class BillingServiceImpl implements BillingService {
             default -> {
                 // For now log only
                 System.out.println("Ignoring Stripe event: " + event.getType());
+                return "ignored";
             }
         }
+        return "handled";
     }
 
 
@@ -191,6 +218,8 @@ public class BillingServiceImpl implements BillingService {
         userRepository.findByEmail(email).ifPresent(user -> {
             user.setPlan(Plan.PRO);
             userRepository.save(user);
+            // requests with a token issued before the upgrade pick the new plan up from here
+            accountCache.evict(user.getId());
         });
     }
 
@@ -0,0 +1,129 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import com.social.aisocialcontentgenerator.service.LlmCircuitBreaker;
+import com.social.aisocialcontentgenerator.service.LlmConcurrencyLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Load shedding in front of the LLM provider: the circuit breaker fails calls fast (503) while the
+ * provider is unhealthy, the adaptive concurrency limiter rejects calls beyond the current limit (429).
+ * Either way the request is answered at once instead of waiting out the provider timeout.
+ * Provider errors (429, 5xx, timeouts, I/O) count against the provider; other 4xx and cancellations do not.
+ */
+public class GuardedLLMService implements LLMService {
+
+    private final LLMService delegate;
+    private final LlmConcurrencyLimiter limiter;
+    private final LlmCircuitBreaker circuitBreaker;
+
+    public GuardedLLMService(LLMService delegate, LlmConcurrencyLimiter limiter, LlmCircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public String callModel(String prompt, Long userId) throws Exception {
+        String text = callModelAsync(prompt, userId).block();
+        if (text == null) throw new RuntimeException("Empty response from LLM");
+        return text;
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return callModelAsync(prompt, userId, null);
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, userId, plan).map(LlmResult::getText);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, null, userId, plan);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            LlmCircuitBreaker.Permit permit = acquire();
+            long start = System.nanoTime();
+            return delegate.callModelForResult(prompt, responseSchema, userId, plan)
+                    .doOnSuccess(result -> onSuccess(permit, System.nanoTime() - start))
+                    .doOnError(ex -> onError(permit, ex))
+                    .doOnCancel(() -> onIgnored(permit));
+        });
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId) {
+        return streamModel(prompt, userId, null);
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId, Plan plan) {
+        return Flux.defer(() -> {
+            LlmCircuitBreaker.Permit permit = acquire();
+            // a stream's duration is mostly output length, not provider load: not a latency signal
+            return delegate.streamModel(prompt, userId, plan)
+                    .doOnComplete(() -> onSuccess(permit, 0))
+                    .doOnError(ex -> onError(permit, ex))
+                    .doOnCancel(() -> onIgnored(permit));
+        });
+    }
+
+    @Override
+    public String modelTier(Plan plan) {
+        return delegate.modelTier(plan);
+    }
+
+    private LlmCircuitBreaker.Permit acquire() {
+        LlmCircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == LlmCircuitBreaker.Permit.REJECTED) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "AI provider is unavailable, please retry shortly");
+        }
+        if (!limiter.tryAcquire()) {
+            circuitBreaker.onIgnored(permit);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many generations in progress, please retry shortly");
+        }
+        return permit;
+    }
+
+    private void onSuccess(LlmCircuitBreaker.Permit permit, long latencyNanos) {
+        limiter.onSuccess(latencyNanos);
+        circuitBreaker.onSuccess(permit);
+    }
+
+    private void onError(LlmCircuitBreaker.Permit permit, Throwable ex) {
+        if (isProviderFailure(ex)) {
+            limiter.onOverload();
+            circuitBreaker.onFailure(permit);
+        } else {
+            onIgnored(permit);
+        }
+    }
+
+    private void onIgnored(LlmCircuitBreaker.Permit permit) {
+        limiter.onIgnored();
+        circuitBreaker.onIgnored(permit);
+    }
+
+    // a 4xx other than 429 is our request's fault, not the provider's
+    private static boolean isProviderFailure(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof WebClientResponseException wre) {
+                return wre.getStatusCode().is5xxServerError() || wre.getStatusCode().value() == 429;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedged LLM calls: if a call has not answered after the hedge delay, an identical second call is fired,
+ * the first answer wins and the other call is cancelled. Cuts the latency tail at the cost of a few
+ * extra calls.
+ * - hedge delay: the configured percentile of recent call latencies (never below min-delay). Only original
+ *   calls are sampled, from their start; one cancelled because the hedge won counts with its time so far
+ *   (a lower bound), so the tail the delay is meant to cut stays in the window
+ * - budget: every call earns max-extra-ratio of a hedge (saved up to a small burst), every hedge spends one,
+ *   so hedges stay below that share of calls even when the provider is slow across the board
+ * - no hedge once the first call has failed; the error is returned as before
+ * Streams are not hedged.
+ * Metrics: llm.hedge.calls{result=fired|no_budget}, llm.hedge.wins{winner=primary|hedge}, llm.hedge.delay.
+ */
+public class HedgingLLMService implements LLMService {
+
+    private final LLMService delegate;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxExtraRatio;
+    private final double maxBurst;
+
+    private final long[] window;
+    private int windowNext;
+    private int windowSize;
+    private int samplesSinceRecompute;
+    private volatile long hedgeDelayNanos;
+    private double budget;
+
+    private final Counter primaryCalls;
+    private final Counter hedgesFired;
+    private final Counter hedgesDenied;
+    private final Counter primaryWins;
+    private final Counter hedgeWins;
+
+    public HedgingLLMService(LLMService delegate, double percentile, Duration minDelay, double maxExtraRatio,
+                             int windowSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxExtraRatio = maxExtraRatio;
+        this.maxBurst = Math.max(1, maxExtraRatio * 100);
+        this.window = new long[windowSize];
+        this.hedgeDelayNanos = minDelayNanos;
+
+        this.primaryCalls = Counter.builder("llm.hedge.primary").description("LLM calls eligible for hedging").register(meterRegistry);
+        this.hedgesFired = Counter.builder("llm.hedge.calls").tag("result", "fired")
+                .description("Second calls fired after the hedge delay").register(meterRegistry);
+        this.hedgesDenied = Counter.builder("llm.hedge.calls").tag("result", "no_budget")
+                .description("Hedges skipped because the budget was spent").register(meterRegistry);
+        this.primaryWins = Counter.builder("llm.hedge.wins").tag("winner", "primary")
+                .description("Hedged calls answered first by the original call").register(meterRegistry);
+        this.hedgeWins = Counter.builder("llm.hedge.wins").tag("winner", "hedge")
+                .description("Hedged calls answered first by the second call").register(meterRegistry);
+        Gauge.builder("llm.hedge.delay", this, h -> h.hedgeDelayNanos / 1_000_000d).baseUnit("milliseconds")
+                .description("Current hedge delay").register(meterRegistry);
+    }
+
+    @Override
+    public String callModel(String prompt, Long userId) throws Exception {
+        String text = callModelAsync(prompt, userId).block();
+        if (text == null) throw new RuntimeException("Empty response from LLM");
+        return text;
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return callModelAsync(prompt, userId, null);
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, userId, plan).map(LlmResult::getText);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, null, userId, plan);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            primaryCalls.increment();
+            earnBudget();
+            // lets the hedge timer stop as soon as the primary call ends without an answer
+            Sinks.Empty<Void> primaryDone = Sinks.empty();
+            AtomicBoolean hedged = new AtomicBoolean();
+
+            Mono<Attempt> primary = timed(prompt, responseSchema, userId, plan, false)
+                    .doFinally(signal -> primaryDone.tryEmitEmpty());
+            Mono<Attempt> hedge = Mono.delay(Duration.ofNanos(hedgeDelayNanos))
+                    .takeUntilOther(primaryDone.asMono())
+                    .flatMap(tick -> {
+                        if (!spendBudget()) {
+                            hedgesDenied.increment();
+                            return Mono.<Attempt>empty();
+                        }
+                        hedgesFired.increment();
+                        hedged.set(true);
+                        return timed(prompt, responseSchema, userId, plan, true);
+                    });
+
+            return Mono.firstWithValue(primary, hedge)
+                    .doOnNext(winner -> {
+                        if (winner.hedge) hedgeWins.increment();
+                        else if (hedged.get()) primaryWins.increment();
+                    })
+                    .map(Attempt::result)
+                    .onErrorMap(HedgingLLMService::unwrap);
+        });
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId) {
+        return delegate.streamModel(prompt, userId);
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId, Plan plan) {
+        return delegate.streamModel(prompt, userId, plan);
+    }
+
+    @Override
+    public String modelTier(Plan plan) {
+        return delegate.modelTier(plan);
+    }
+
+    private Mono<Attempt> timed(String prompt, JsonNode responseSchema, Long userId, Plan plan, boolean hedge) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            // a hedge starts late and would understate the latency; the original call is sampled once
+            AtomicBoolean sampled = new AtomicBoolean(hedge);
+            return delegate.callModelForResult(prompt, responseSchema, userId, plan)
+                    .doOnNext(result -> {
+                        if (sampled.compareAndSet(false, true)) recordLatency(System.nanoTime() - start);
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && sampled.compareAndSet(false, true)) {
+                            recordLatency(System.nanoTime() - start);
+                        }
+                    })
+                    .map(result -> new Attempt(result, hedge));
+        });
+    }
+
+    private synchronized void earnBudget() {
+        budget = Math.min(maxBurst, budget + maxExtraRatio);
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < 1) return false;
+        budget -= 1;
+        return true;
+    }
+
+    // ring buffer of recent latencies; the percentile is recomputed every 64 samples, not per call
+    private synchronized void recordLatency(long nanos) {
+        window[windowNext] = nanos;
+        windowNext = (windowNext + 1) % window.length;
+        if (windowSize < window.length) windowSize++;
+        if (++samplesSinceRecompute < 64) return;
+        samplesSinceRecompute = 0;
+        long[] sorted = Arrays.copyOf(window, windowSize);
+        Arrays.sort(sorted);
+        long p = sorted[Math.min(windowSize - 1, (int) Math.ceil(percentile * windowSize) - 1)];
+        hedgeDelayNanos = Math.max(minDelayNanos, p);
+    }
+
+    // Mono.firstWithValue reports "all sources failed" as NoSuchElementException; surface the real error instead
+    private static Throwable unwrap(Throwable ex) {
+        if (ex instanceof NoSuchElementException && ex.getCause() != null) {
+            List<Throwable> causes = Exceptions.unwrapMultiple(ex.getCause());
+            if (!causes.isEmpty()) return causes.get(0);
+        }
+        return ex;
+    }
+
+    private record Attempt(LlmResult result, boolean hedge) {
+    }
+}
@@ -2,80 +2,255 @@ package com.social.aisocialcontentgenerator.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
 import com.social.aisocialcontentgenerator.service.LLMService;
+import com.social.aisocialcontentgenerator.service.PromptPrefixCache;
+import com.social.aisocialcontentgenerator.util.GeminiResponseExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 
-@Service
-public class HttpGeminiService implements LLMService {
+/**
+ * One Gemini model endpoint. Instances are created per configured backend by LlmConfig
+ * and sit behind RoutingLLMService.
+ * With a PromptPrefixCache, it is also that cache's Store for the model: static prompt prefixes are
+ * registered as cachedContents and calls send only the per-request suffix plus the cachedContent name.
+ */
+public class HttpGeminiService implements LLMService, PromptPrefixCache.Store {
 
     private static final Logger log = LoggerFactory.getLogger(HttpGeminiService.class);
     private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
 
     private final WebClient webClient;
+    private final String apiUrl;
+    private final String apiKey;
+    private final PromptPrefixCache prefixCache;
+    // ".../v1beta" and "models/<model>" of apiUrl, for the cachedContents API; null when apiUrl has no model
+    private final String baseUrl;
+    private final String model;
 
-    @Value("${llm.apiUrl}")
-    private String apiUrl;
-
-    @Value("${llm.apiKey}")
-    private String apiKey;
+    public HttpGeminiService(WebClient webClient, String apiUrl, String apiKey) {
+        this(webClient, apiUrl, apiKey, null);
+    }
 
-    public HttpGeminiService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public HttpGeminiService(WebClient webClient, String apiUrl, String apiKey, PromptPrefixCache prefixCache) {
+        this.webClient = webClient;
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        String fullUrl = fullUrl();
+        int models = fullUrl.indexOf("/models/");
+        int method = fullUrl.indexOf(':', models + 1);
+        boolean cacheable = models > 0 && method > models;
+        this.baseUrl = cacheable ? fullUrl.substring(0, models) : null;
+        this.model = cacheable ? fullUrl.substring(models + 1, method) : null;
+        this.prefixCache = cacheable ? prefixCache : null;
     }
 
     public String callModel(String prompt, Long userId) throws Exception {
-        // Build request body (generative content)
-        JsonNode requestBody = MAPPER.createObjectNode()
-                .set("contents", MAPPER.createArrayNode()
-                        .add(MAPPER.createObjectNode()
-                                .set("parts", MAPPER.createArrayNode()
-                                        .add(MAPPER.createObjectNode().put("text", prompt))
-                                )
-                        )
-                );
+        String text = callModelAsync(prompt, userId).block();
+        if (text == null) throw new RuntimeException("Empty response from LLM");
+        return text;
+    }
 
-        // Ensure full URL (should be full already per application.yml)
-        String fullUrl = apiUrl;
-        if (!fullUrl.startsWith("http://") && !fullUrl.startsWith("https://")) {
-            fullUrl = "https://generativelanguage.googleapis.com" + (fullUrl.startsWith("/") ? "" : "/") + fullUrl;
-        }
-        String uriWithKey = fullUrl + (fullUrl.contains("?") ? "&" : "?") + "key=" + apiKey;
-
-        try {
-            String raw = webClient.post()
-                    .uri(uriWithKey)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(30))
-                    .block();
-
-            if (raw == null) throw new RuntimeException("Empty response from LLM");
-            log.debug("Raw LLM response: {}", raw);
-
-            JsonNode root = MAPPER.readTree(raw);
-            // typical path: candidates[0].content.parts[0].text
-            JsonNode textNode = root.path("candidates").path(0).path("content").path("parts").path(0).path("text");
-            if (!textNode.isMissingNode() && !textNode.isNull()) {
-                return textNode.asText();
-            }
-
-            // fallback: return whole body
-            return raw;
-
-        } catch (WebClientResponseException wre) {
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return callModelForResult(prompt, userId, null).map(LlmResult::getText);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, null, userId, plan);
+    }
+
+    /**
+     * The body is never materialized as a String or JSON tree: GeminiResponseExtractor parses the
+     * network buffers as they arrive and copies out only the model text and usageMetadata.
+     * With a response schema the model answers in JSON mode (responseMimeType application/json).
+     */
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            PromptPrefixCache.Match cached = lookup(prompt);
+            return generate(prompt, cached, responseSchema).doOnError(ex -> invalidate(cached));
+        });
+    }
+
+    private Mono<LlmResult> generate(String prompt, PromptPrefixCache.Match cached, JsonNode responseSchema) {
+        return webClient.post()
+                .uri(buildUri(false))
+                .bodyValue(buildRequestBody(prompt, cached, responseSchema))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .reduceWith(GeminiResponseExtractor::new, (extractor, buffer) -> {
+                    try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                        while (buffers.hasNext()) extractor.feed(buffers.next());
+                    } catch (IOException ex) {
+                        throw Exceptions.propagate(ex);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                    return extractor;
+                })
+                .timeout(Duration.ofSeconds(30))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response from LLM")))
+                .<LlmResult>handle((extractor, sink) -> {
+                    try {
+                        extractor.finish();
+                    } catch (IOException ex) {
+                        sink.error(ex);
+                        return;
+                    }
+                    if (extractor.text() == null) {
+                        sink.error(new RuntimeException("LLM response has no text (finishReason="
+                                + extractor.finishReason() + ", blockReason=" + extractor.blockReason() + ")"));
+                        return;
+                    }
+                    log.debug("LLM response: {} chars, usage {}", extractor.text().length(), extractor.usage());
+                    if (prefixCache != null) prefixCache.recordUsage(extractor.usage());
+                    sink.next(new LlmResult(extractor.text(), extractor.usage()));
+                })
+                .onErrorMap(HttpGeminiService::toLlmException);
+    }
+
+    /**
+     * Streams the model text via streamGenerateContent (alt=sse). Every SSE event carries a partial
+     * GenerateContentResponse; we forward only the text of each chunk.
+     */
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId) {
+        return Flux.defer(() -> {
+            PromptPrefixCache.Match cached = lookup(prompt);
+            return stream(prompt, cached).doOnError(ex -> invalidate(cached));
+        });
+    }
+
+    private Flux<String> stream(String prompt, PromptPrefixCache.Match cached) {
+        return webClient.post()
+                .uri(buildUri(true))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(buildRequestBody(prompt, cached, null))
+                .retrieve()
+                .bodyToFlux(SSE_TYPE)
+                // 30s of silence between chunks is treated like a timeout of the blocking call
+                .timeout(Duration.ofSeconds(30))
+                .mapNotNull(ServerSentEvent::data)
+                .handle((data, sink) -> {
+                    try {
+                        String text = GeminiResponseExtractor.of(data.getBytes(StandardCharsets.UTF_8)).text();
+                        if (text != null && !text.isEmpty()) sink.next(text);
+                    } catch (Exception ex) {
+                        sink.error(ex);
+                    }
+                })
+                .cast(String.class)
+                .onErrorMap(HttpGeminiService::toLlmException);
+    }
+
+    /**
+     * Registers {@code prefix} as a cachedContents resource of this model (a user turn, like inline prompts).
+     */
+    @Override
+    public Mono<PromptPrefixCache.Handle> create(String prefix, Duration ttl) {
+        ObjectNode body = MAPPER.createObjectNode().put("model", model);
+        body.set("contents", MAPPER.createArrayNode().add(userContent(prefix)));
+        body.put("ttl", ttl.toSeconds() + "s");
+        return cachedContent(webClient.post().uri(baseUrl + "/cachedContents?key=" + apiKey), body, ttl);
+    }
+
+    @Override
+    public Mono<PromptPrefixCache.Handle> extend(String name, Duration ttl) {
+        ObjectNode body = MAPPER.createObjectNode().put("ttl", ttl.toSeconds() + "s");
+        return cachedContent(webClient.patch().uri(baseUrl + "/" + name + "?updateMask=ttl&key=" + apiKey), body, ttl);
+    }
+
+    private static Mono<PromptPrefixCache.Handle> cachedContent(WebClient.RequestBodySpec request, JsonNode body, Duration ttl) {
+        return request.bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(30))
+                .handle((json, sink) -> {
+                    String name = json.path("name").asText(null);
+                    if (name == null) {
+                        sink.error(new RuntimeException("cachedContents response has no name"));
+                        return;
+                    }
+                    String expireTime = json.path("expireTime").asText(null);
+                    sink.next(new PromptPrefixCache.Handle(name,
+                            expireTime != null ? Instant.parse(expireTime) : Instant.now().plus(ttl)));
+                });
+    }
+
+    private PromptPrefixCache.Match lookup(String prompt) {
+        return prefixCache != null ? prefixCache.lookup(this, prompt) : null;
+    }
+
+    private void invalidate(PromptPrefixCache.Match cached) {
+        if (cached != null) prefixCache.invalidate(this, cached);
+    }
+
+    private static Throwable toLlmException(Throwable ex) {
+        if (ex instanceof WebClientResponseException wre) {
             log.error("LLM HTTP error: status={} body={}", wre.getRawStatusCode(), wre.getResponseBodyAsString());
-            throw new RuntimeException("LLM call failed: " + wre.getRawStatusCode() + " - " + wre.getResponseBodyAsString(), wre);
-        } catch (Exception ex) {
-            log.error("LLM call error", ex);
-            throw new RuntimeException("LLM call failed: " + ex.getMessage(), ex);
+            return new RuntimeException("LLM call failed: " + wre.getRawStatusCode() + " - " + wre.getResponseBodyAsString(), wre);
+        }
+        log.error("LLM call error", ex);
+        return new RuntimeException("LLM call failed: " + ex.getMessage(), ex);
+    }
+
+    private JsonNode buildRequestBody(String prompt, PromptPrefixCache.Match cached, JsonNode responseSchema) {
+        // Build request body (generative content); a cached prefix is referenced by name, not resent
+        ObjectNode body = MAPPER.createObjectNode();
+        if (cached != null) {
+            body.put("cachedContent", cached.name());
+            prompt = prompt.substring(cached.prefixLength());
         }
+        body.set("contents", MAPPER.createArrayNode().add(userContent(prompt)));
+        if (responseSchema != null) {
+            body.putObject("generationConfig")
+                    .put("responseMimeType", "application/json")
+                    .set("responseSchema", responseSchema);
+        }
+        return body;
+    }
+
+    private static ObjectNode userContent(String text) {
+        ObjectNode content = MAPPER.createObjectNode().put("role", "user");
+        content.putArray("parts").addObject().put("text", text);
+        return content;
+    }
+
+    private String fullUrl() {
+        // Ensure full URL (should be full already per application.yml)
+        if (apiUrl.startsWith("http://") || apiUrl.startsWith("https://")) return apiUrl;
+        return "https://generativelanguage.googleapis.com" + (apiUrl.startsWith("/") ? "" : "/") + apiUrl;
     }
+
+    private String buildUri(boolean streaming) {
+        String fullUrl = fullUrl();
+        if (streaming) {
+            // ...:generateContent -> ...:streamGenerateContent?alt=sse
+            fullUrl = fullUrl.replace(":generateContent", ":streamGenerateContent");
+            fullUrl = fullUrl + (fullUrl.contains("?") ? "&" : "?") + "alt=sse";
+        }
+        return fullUrl + (fullUrl.contains("?") ? "&" : "?") + "key=" + apiKey;
+    }
+
 }
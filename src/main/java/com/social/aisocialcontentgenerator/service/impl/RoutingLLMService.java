@@ -0,0 +1,271 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.config.LlmRoutingProperties;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLMService that routes every call to one of several backends (models / endpoints / the local stub).
+ * - Each backend keeps an EWMA of its latency (successful calls) and of its error rate (all calls).
+ *   A cancelled call (e.g. a hedge won) is a lower bound: it only raises the latency, when it ran longer.
+ * - A backend with no result yet gets at most probe-calls calls in flight under FASTEST, so a cold or
+ *   bad backend does not take all traffic at startup.
+ * - A plan's policy limits which backends it may use and how to choose among the healthy ones:
+ *   FASTEST (lowest expected time per successful call: latency / (1 - error rate)) or ORDERED
+ *   (first healthy in the listed order).
+ * - A backend is unhealthy while its error rate is at or above max-error-rate; retry-after after its last
+ *   failure it is tried again, so a recovered backend is picked up without a restart.
+ * - If every allowed backend is unhealthy the one with the lowest error rate is still tried.
+ * Metrics: llm.routing.decisions{backend,plan}, llm.backend.calls{backend,outcome},
+ * llm.backend.latency.ewma{backend} (ms) and llm.backend.error_rate.ewma{backend}.
+ */
+public class RoutingLLMService implements LLMService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingLLMService.class);
+
+    private final Map<String, Backend> backends = new LinkedHashMap<>();
+    private final Map<Plan, Route> routes = new EnumMap<>(Plan.class);
+    private final Route defaultRoute;
+    private final double alpha;
+    private final double maxErrorRate;
+    private final long retryAfterNanos;
+    private final int probeCalls;
+
+    public RoutingLLMService(Map<String, LLMService> services, LlmRoutingProperties properties, MeterRegistry meterRegistry) {
+        if (services.isEmpty()) throw new IllegalArgumentException("At least one LLM backend is required");
+        this.alpha = properties.getEwmaAlpha();
+        this.maxErrorRate = properties.getMaxErrorRate();
+        this.retryAfterNanos = properties.getRetryAfter().toNanos();
+        this.probeCalls = properties.getProbeCalls();
+
+        services.forEach((name, service) -> backends.put(name, new Backend(name, service, meterRegistry)));
+        this.defaultRoute = new Route("", LlmRoutingProperties.Strategy.FASTEST, List.copyOf(backends.values()));
+
+        properties.getPlans().forEach((plan, policy) -> {
+            List<Backend> allowed = new ArrayList<>();
+            for (String name : policy.getBackends()) {
+                Backend backend = backends.get(name);
+                if (backend != null) allowed.add(backend);
+                else log.warn("LLM routing policy for {} names unknown backend '{}', ignored", plan, name);
+            }
+            if (allowed.isEmpty()) {
+                log.warn("LLM routing policy for {} has no usable backend, using all backends", plan);
+                return;
+            }
+            routes.put(plan, new Route(policy.getStrategy() + ":" + String.join(",", policy.getBackends()),
+                    policy.getStrategy(), allowed));
+        });
+    }
+
+    @Override
+    public String callModel(String prompt, Long userId) throws Exception {
+        String text = callModelAsync(prompt, userId).block();
+        if (text == null) throw new RuntimeException("Empty response from LLM");
+        return text;
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return callModelAsync(prompt, userId, null);
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, userId, plan).map(LlmResult::getText);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, Long userId, Plan plan) {
+        return callModelForResult(prompt, null, userId, plan);
+    }
+
+    @Override
+    public Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+        return Mono.defer(() -> {
+            Choice choice = choose(plan);
+            Backend backend = choice.backend();
+            long start = System.nanoTime();
+            return backend.service.callModelForResult(prompt, responseSchema, userId, plan)
+                    .doOnSuccess(result -> backend.record(true, System.nanoTime() - start))
+                    .doOnError(ex -> backend.record(false, System.nanoTime() - start))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) backend.recordCancelled(System.nanoTime() - start);
+                        if (choice.probe()) backend.endProbe();
+                    });
+        });
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId) {
+        return streamModel(prompt, userId, null);
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId, Plan plan) {
+        return Flux.defer(() -> {
+            Choice choice = choose(plan);
+            Backend backend = choice.backend();
+            long start = System.nanoTime();
+            // latency of a stream is the time to its last chunk; a client cancelling says nothing about the backend
+            return backend.service.streamModel(prompt, userId)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) backend.record(true, System.nanoTime() - start);
+                        else if (signal == SignalType.ON_ERROR) backend.record(false, System.nanoTime() - start);
+                        if (choice.probe()) backend.endProbe();
+                    });
+        });
+    }
+
+    // plans sharing a policy share cache entries; with no policies configured the plan does not matter
+    @Override
+    public String modelTier(Plan plan) {
+        return route(plan).tier;
+    }
+
+    private Route route(Plan plan) {
+        Route route = plan != null ? routes.get(plan) : null;
+        return route != null ? route : defaultRoute;
+    }
+
+    Choice choose(Plan plan) {
+        Route route = route(plan);
+        long now = System.nanoTime();
+        Backend chosen = null;
+        for (Backend backend : route.backends) {
+            if (!backend.isHealthy(now)) continue;
+            if (route.strategy == LlmRoutingProperties.Strategy.ORDERED) {
+                chosen = backend;
+                break;
+            }
+            // a backend with no result yet is tried first, a few calls at a time
+            if (backend.tryProbe()) {
+                decided(backend, plan);
+                return new Choice(backend, true);
+            }
+            if (chosen == null || backend.score() < chosen.score()) chosen = backend;
+        }
+        if (chosen == null) {
+            // nothing healthy: least bad rather than failing outright
+            for (Backend backend : route.backends) {
+                if (chosen == null || backend.errorRate() < chosen.errorRate()) chosen = backend;
+            }
+        }
+        decided(chosen, plan);
+        return new Choice(chosen, false);
+    }
+
+    private static void decided(Backend backend, Plan plan) {
+        (plan != null ? backend.decisions.get(plan) : backend.unplannedDecisions).increment();
+    }
+
+    private record Route(String tier, LlmRoutingProperties.Strategy strategy, List<Backend> backends) {
+    }
+
+    // probe: the call holds one of the backend's probe slots until it ends
+    record Choice(Backend backend, boolean probe) {
+    }
+
+    final class Backend {
+        private final LLMService service;
+        private final Timer success;
+        private final Timer failure;
+        private final Timer cancelled;
+        private final Map<Plan, Counter> decisions = new EnumMap<>(Plan.class);
+        private final Counter unplannedDecisions;
+        // 0 until the first call ends; until then the backend is probed (see tryProbe)
+        private double latencyNanos;
+        private double errorRate;
+        private long lastFailureNanos;
+        private boolean tried;
+        private int probes;
+
+        Backend(String name, LLMService service, MeterRegistry meterRegistry) {
+            this.service = service;
+            this.success = Timer.builder("llm.backend.calls").tag("backend", name).tag("outcome", "success")
+                    .description("LLM calls per backend").publishPercentiles(0.5, 0.95, 0.99).register(meterRegistry);
+            this.failure = Timer.builder("llm.backend.calls").tag("backend", name).tag("outcome", "error")
+                    .description("LLM calls per backend").register(meterRegistry);
+            this.cancelled = Timer.builder("llm.backend.calls").tag("backend", name).tag("outcome", "cancelled")
+                    .description("LLM calls per backend").register(meterRegistry);
+            for (Plan plan : Plan.values()) decisions.put(plan, decisionCounter(name, plan.name(), meterRegistry));
+            this.unplannedDecisions = decisionCounter(name, "none", meterRegistry);
+            Gauge.builder("llm.backend.latency.ewma", this, b -> b.latencyNanos() / 1_000_000d)
+                    .tag("backend", name).baseUnit("milliseconds")
+                    .description("Average latency of successful calls").register(meterRegistry);
+            Gauge.builder("llm.backend.error_rate.ewma", this, Backend::errorRate)
+                    .tag("backend", name)
+                    .description("Average share of failed calls").register(meterRegistry);
+        }
+
+        private static Counter decisionCounter(String backend, String plan, MeterRegistry meterRegistry) {
+            return Counter.builder("llm.routing.decisions").tag("backend", backend).tag("plan", plan)
+                    .description("LLM calls routed to each backend").register(meterRegistry);
+        }
+
+        synchronized void record(boolean ok, long elapsedNanos) {
+            tried = true;
+            if (ok) {
+                latencyNanos = latencyNanos == 0 ? elapsedNanos : alpha * elapsedNanos + (1 - alpha) * latencyNanos;
+                success.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            } else {
+                lastFailureNanos = System.nanoTime();
+                failure.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            errorRate = alpha * (ok ? 0 : 1) + (1 - alpha) * errorRate;
+        }
+
+        // the call was given up after elapsedNanos, so its latency is at least that; a shorter one says nothing
+        synchronized void recordCancelled(long elapsedNanos) {
+            cancelled.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (latencyNanos == 0 || elapsedNanos <= latencyNanos) return;
+            latencyNanos = alpha * elapsedNanos + (1 - alpha) * latencyNanos;
+        }
+
+        // claims a probe slot while the backend has no result yet
+        synchronized boolean tryProbe() {
+            if (tried || probes >= probeCalls) return false;
+            probes++;
+            return true;
+        }
+
+        synchronized void endProbe() {
+            probes--;
+        }
+
+        // expected nanos per successful call; untried (probes busy) and only-ever-failed backends rank last
+        synchronized double score() {
+            if (latencyNanos == 0) return Double.MAX_VALUE;
+            return latencyNanos / (1 - Math.min(errorRate, 0.99));
+        }
+
+        synchronized boolean isHealthy(long now) {
+            return errorRate < maxErrorRate || now - lastFailureNanos >= retryAfterNanos;
+        }
+
+        synchronized double latencyNanos() {
+            return latencyNanos;
+        }
+
+        synchronized double errorRate() {
+            return errorRate;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.social.aisocialcontentgenerator.service.LLMService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Local stand-in for Gemini with an injected latency, used for load / throughput testing.
+ * With llm.stub.enabled=true it replaces the Gemini backend; it can also be listed as a
+ * routing backend (type: stub).
+ */
+public class StubLLMService implements LLMService {
+
+    static final String RESPONSE = "{\n"
+            + "  \"captions\": [\"Stub caption one\", \"Stub caption two\", \"Stub caption three\"],\n"
+            + "  \"hashtags\": [\"#stub\", \"#loadtest\", \"#latency\"],\n"
+            + "  \"ideas\": [{\"title\":\"Stub idea\",\"description\":\"Generated without calling Gemini\",\"imageIdea\":\"placeholder\"}]\n"
+            + "}";
+
+    private final Duration latency;
+
+    public StubLLMService(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public String callModel(String prompt, Long userId) throws Exception {
+        Thread.sleep(latency.toMillis());
+        return RESPONSE;
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return Mono.delay(latency).thenReturn(RESPONSE);
+    }
+
+    @Override
+    public Flux<String> streamModel(String prompt, Long userId) {
+        // split the latency over a few chunks so streaming clients see incremental output
+        String[] lines = RESPONSE.split("\n");
+        Duration perChunk = latency.dividedBy(lines.length);
+        return Flux.fromArray(lines)
+                .map(line -> line + "\n")
+                .delayElements(perChunk);
+    }
+}
@@ -0,0 +1,144 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.social.aisocialcontentgenerator.dto.LlmUsage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Pulls the model text and usage out of a Gemini GenerateContentResponse while the body is arriving,
+ * with Jackson's non-blocking parser fed straight from the network buffers.
+ * - No String of the whole body and no JSON tree: only candidates[0].content.parts[0].text is copied
+ *   out, everything else (safety ratings, other candidates, ...) is skipped token by token.
+ * - usageMetadata token counts, candidates[0].finishReason and promptFeedback.blockReason are kept.
+ * One instance per response, not thread-safe: {@link #feed} each buffer in order, then {@link #finish}.
+ */
+public class GeminiResponseExtractor {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int TEXT_DEPTH = 6;   // candidates[0].content.parts[0].text
+    private static final int MAX_DEPTH = 64;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    // per nesting level: field name (objects) or element index (arrays)
+    private final String[] fieldNames = new String[MAX_DEPTH];
+    private final int[] indexes = new int[MAX_DEPTH];
+    private final boolean[] arrays = new boolean[MAX_DEPTH];
+    private int depth;
+
+    private String text;
+    private String finishReason;
+    private String blockReason;
+    private LlmUsage usage;
+
+    public GeminiResponseExtractor() {
+        try {
+            this.parser = FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parse a complete response (e.g. one SSE event) in one go.
+     */
+    public static GeminiResponseExtractor of(byte[] json) throws IOException {
+        GeminiResponseExtractor extractor = new GeminiResponseExtractor();
+        extractor.feed(ByteBuffer.wrap(json));
+        extractor.finish();
+        return extractor;
+    }
+
+    /**
+     * Consume the next chunk of the body. The buffer is fully read before this returns.
+     */
+    public void feed(ByteBuffer buffer) throws IOException {
+        feeder.feedInput(buffer);
+        drain();
+    }
+
+    public void finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        parser.close();
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public LlmUsage usage() {
+        return usage;
+    }
+
+    public String finishReason() {
+        return finishReason;
+    }
+
+    public String blockReason() {
+        return blockReason;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    nextElement();
+                    if (depth == MAX_DEPTH) throw new IOException("LLM response nested too deeply");
+                    arrays[depth] = token == JsonToken.START_ARRAY;
+                    indexes[depth] = -1;
+                    fieldNames[depth] = null;
+                    depth++;
+                }
+                case END_OBJECT, END_ARRAY -> depth--;
+                case FIELD_NAME -> fieldNames[depth - 1] = parser.currentName();
+                default -> {
+                    nextElement();
+                    onScalar(token);
+                }
+            }
+        }
+    }
+
+    private void nextElement() {
+        if (depth > 0 && arrays[depth - 1]) indexes[depth - 1]++;
+    }
+
+    private void onScalar(JsonToken token) throws IOException {
+        if (depth == TEXT_DEPTH && token == JsonToken.VALUE_STRING && text == null
+                && inFirstCandidate() && "parts".equals(fieldNames[3]) && indexes[4] == 0 && "text".equals(fieldNames[5])) {
+            text = parser.getText();
+        } else if (depth == 3 && token == JsonToken.VALUE_STRING && inFirstCandidate() && "finishReason".equals(fieldNames[2])) {
+            finishReason = parser.getText();
+        } else if (depth == 2 && "usageMetadata".equals(fieldNames[0]) && token == JsonToken.VALUE_NUMBER_INT) {
+            if (usage == null) usage = new LlmUsage();
+            int count = parser.getIntValue();
+            switch (fieldNames[1]) {
+                case "promptTokenCount" -> usage.setPromptTokens(count);
+                case "candidatesTokenCount" -> usage.setCandidatesTokens(count);
+                case "totalTokenCount" -> usage.setTotalTokens(count);
+                case "cachedContentTokenCount" -> usage.setCachedContentTokens(count);
+                case "thoughtsTokenCount" -> usage.setThoughtsTokens(count);
+                default -> {
+                }
+            }
+        } else if (depth == 2 && token == JsonToken.VALUE_STRING
+                && "promptFeedback".equals(fieldNames[0]) && "blockReason".equals(fieldNames[1])) {
+            blockReason = parser.getText();
+        }
+    }
+
+    // path starts with candidates[0] (and, for the text, continues with .content)
+    private boolean inFirstCandidate() {
+        if (!"candidates".equals(fieldNames[0]) || !arrays[1] || indexes[1] != 0) return false;
+        return depth != TEXT_DEPTH || "content".equals(fieldNames[2]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Gemini responseSchema (the OpenAPI subset of generationConfig) derived from our DTO classes, so the
+ * model is held to exactly the shape PromptParser binds to.
+ * - every non-static field becomes a required property, in declaration order (propertyOrdering)
+ * - String / numbers / booleans map to their scalar types, collections to ARRAY of their element type
+ * The returned nodes are shared; callers must not modify them.
+ */
+public final class GeminiSchema {
+
+    private static final ObjectMapper M = new ObjectMapper();
+
+    /** Schema of GenerateResponse (captions, hashtags, ideas of PostIdea). */
+    public static final ObjectNode GENERATE_RESPONSE = of(GenerateResponse.class);
+
+    private GeminiSchema() {
+    }
+
+    /**
+     * Schema of a multi-platform answer: an object keyed by the given platforms, each a GenerateResponse.
+     */
+    public static ObjectNode forPlatforms(List<String> platforms) {
+        ObjectNode properties = M.createObjectNode();
+        ArrayNode names = M.createArrayNode();
+        for (String platform : platforms) {
+            properties.set(platform, GENERATE_RESPONSE);
+            names.add(platform);
+        }
+        return object(properties, names);
+    }
+
+    public static ObjectNode of(Type type) {
+        Class<?> raw = (Class<?>) (type instanceof ParameterizedType p ? p.getRawType() : type);
+        if (raw == String.class || raw.isEnum()) return scalar("STRING");
+        if (raw == boolean.class || raw == Boolean.class) return scalar("BOOLEAN");
+        if (raw == int.class || raw == long.class || raw == Integer.class || raw == Long.class) return scalar("INTEGER");
+        if (raw.isPrimitive() || Number.class.isAssignableFrom(raw)) return scalar("NUMBER");
+        if (Collection.class.isAssignableFrom(raw)) {
+            if (!(type instanceof ParameterizedType p)) throw new IllegalArgumentException("Raw collection type " + type);
+            ObjectNode array = scalar("ARRAY");
+            array.set("items", of(p.getActualTypeArguments()[0]));
+            return array;
+        }
+
+        ObjectNode properties = M.createObjectNode();
+        ArrayNode names = M.createArrayNode();
+        for (Field field : raw.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
+            properties.set(field.getName(), of(field.getGenericType()));
+            names.add(field.getName());
+        }
+        return object(properties, names);
+    }
+
+    private static ObjectNode object(ObjectNode properties, ArrayNode names) {
+        ObjectNode object = scalar("OBJECT");
+        object.set("properties", properties);
+        object.set("required", names);
+        object.set("propertyOrdering", names.deepCopy());
+        return object;
+    }
+
+    private static ObjectNode scalar(String type) {
+        return M.createObjectNode().put("type", type);
+    }
+}
@@ -0,0 +1,97 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Canonical key of a GenerateRequest, shared by every cache / dedupe layer.
+ * Requests that only differ in case, spacing, platform spelling or keyword order map to the same key:
+ * "Instagram / Fitness / friendly / protein, gym" and "IG/fitness/Friendly/gym,protein" both give
+ * "instagram|fitness|friendly|gym,protein".
+ */
+public final class GenerationKey {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern KEYWORD_SEPARATORS = Pattern.compile("[,;\\n]");
+    private static final String DEFAULT_TONE = "friendly";
+
+    private static final Map<String, String> PLATFORM_ALIASES = Map.ofEntries(
+            Map.entry("ig", "instagram"),
+            Map.entry("insta", "instagram"),
+            Map.entry("fb", "facebook"),
+            Map.entry("meta", "facebook"),
+            Map.entry("twitter", "x"),
+            Map.entry("x.com", "x"),
+            Map.entry("li", "linkedin"),
+            Map.entry("linked in", "linkedin"),
+            Map.entry("yt", "youtube"),
+            Map.entry("tt", "tiktok"),
+            Map.entry("tik tok", "tiktok"),
+            Map.entry("pin", "pinterest")
+    );
+
+    private GenerationKey() {
+    }
+
+    public static String of(GenerateRequest req) {
+        return platform(req.getPlatform()) + '|' + rest(req.getIndustry(), req.getTone(), req.getKeywords());
+    }
+
+    /**
+     * Key of a multi-platform request: its canonical platforms, sorted and joined with '+'
+     * ("multi:instagram+linkedin+x|fitness|friendly|gym"). The prefix keeps it apart from the single-platform
+     * key even when only one platform is asked for: the cached answers have different shapes.
+     */
+    public static String of(MultiPlatformGenerateRequest req) {
+        return "multi:" + String.join("+", new TreeSet<>(platforms(req.getPlatforms()))) + '|'
+                + rest(req.getIndustry(), req.getTone(), req.getKeywords());
+    }
+
+    /**
+     * Canonical platform name: case-folded, whitespace-collapsed and alias-resolved ("IG" -> "instagram").
+     */
+    public static String platform(String platform) {
+        String p = normalize(platform);
+        return PLATFORM_ALIASES.getOrDefault(p, p);
+    }
+
+    /**
+     * Canonical platform names in request order, without blanks and duplicates ("IG", "instagram" -> instagram).
+     */
+    public static List<String> platforms(List<String> platforms) {
+        LinkedHashSet<String> set = new LinkedHashSet<>();
+        for (String p : platforms) {
+            String canonical = platform(p);
+            if (!canonical.isEmpty()) set.add(canonical);
+        }
+        return List.copyOf(set);
+    }
+
+    private static String rest(String industry, String tone, String keywords) {
+        String t = normalize(tone);
+        return normalize(industry) + '|' + (t.isEmpty() ? DEFAULT_TONE : t) + '|' + keywords(keywords);
+    }
+
+    // keywords are a set: split on , ; or newline, normalize each, drop empties and duplicates, sort
+    private static String keywords(String keywords) {
+        if (keywords == null || keywords.isBlank()) return "";
+        TreeSet<String> set = new TreeSet<>();
+        for (String k : KEYWORD_SEPARATORS.split(keywords)) {
+            String n = normalize(k);
+            if (!n.isEmpty()) set.add(n);
+        }
+        return String.join(",", set);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return "";
+        return WHITESPACE.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,8 @@
 package com.social.aisocialcontentgenerator.util;
 
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -12,6 +15,9 @@ import java.util.Date;
 @Component
 public class JwtUtils {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_PLAN = "plan";
+
     @Value("${app.jwtSecret:change_this_secret_change_this_secret_change_this}")
     private String jwtSecret;
 
@@ -21,8 +27,16 @@ public class JwtUtils {
     // Key object created from the secret
     private Key signingKey;
 
+    // Thread-safe and reusable; built once instead of per call
+    private JwtParser parser;
+
     @PostConstruct
     public void init() {
+        signingKey = createSigningKey();
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    private Key createSigningKey() {
         // Ensure secret is long enough for HS256 (>= 32 bytes). If your secret is short,
         // repeat/expand or use a securely generated key.
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
@@ -33,8 +47,7 @@ public class JwtUtils {
             if ((jwtSecret.matches("^[A-Za-z0-9+/=]+$") && (jwtSecret.length() % 4 == 0))) {
                 // decode and use decoded bytes
                 byte[] decoded = java.util.Base64.getDecoder().decode(jwtSecret);
-                signingKey = Keys.hmacShaKeyFor(decoded);
-                return;
+                return Keys.hmacShaKeyFor(decoded);
             }
         } catch (IllegalArgumentException ignored) {
             // not valid base64 -> fall back to using raw bytes below
@@ -49,14 +62,25 @@ public class JwtUtils {
             for (int i = keyBytes.length; i < expanded.length; i++) {
                 expanded[i] = (byte) ('A' + (i % 26)); // simple padding; replace in prod
             }
-            signingKey = Keys.hmacShaKeyFor(expanded);
-        } else {
-            signingKey = Keys.hmacShaKeyFor(keyBytes);
+            return Keys.hmacShaKeyFor(expanded);
         }
+        return Keys.hmacShaKeyFor(keyBytes);
     }
 
     // Generate token (subject is email in your flow)
     public String generateToken(String subject) {
+        return buildToken(subject).compact();
+    }
+
+    // Token carrying userId (and the plan at issue time); requests take the current plan from AccountCache
+    public String generateToken(User user) {
+        return buildToken(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_PLAN, user.getPlan() == null ? Plan.FREE.name() : user.getPlan().name())
+                .compact();
+    }
+
+    private JwtBuilder buildToken(String subject) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + jwtExpirationMs);
 
@@ -64,16 +88,33 @@ public class JwtUtils {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(signingKey, SignatureAlgorithm.HS256)
-                .compact();
+                .signWith(signingKey, SignatureAlgorithm.HS256);
+    }
+
+    /**
+     * Verify the token once and return its claims, or null if it is invalid or expired.
+     */
+    public Claims parseToken(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Principal from verified claims. userId / plan are null for tokens issued before they were added.
+     */
+    public AuthPrincipal toPrincipal(Claims claims) {
+        Number uid = claims.get(CLAIM_USER_ID, Number.class);
+        String plan = claims.get(CLAIM_PLAN, String.class);
+        return new AuthPrincipal(uid == null ? null : uid.longValue(), claims.getSubject(),
+                plan == null ? null : Plan.valueOf(plan));
     }
 
     // Extract subject
     public String getSubjectFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
+        return parser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
@@ -81,7 +122,7 @@ public class JwtUtils {
     // Validate token
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(signingKey).build().parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (JwtException e) {
             // log if you want in dev
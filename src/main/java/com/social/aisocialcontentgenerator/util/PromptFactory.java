@@ -2,32 +2,110 @@ package com.social.aisocialcontentgenerator.util;
 
 
 import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
 
+import java.util.List;
+
+/**
+ * Prompts are a static prefix (role, output contract, requirements, example) followed by a short
+ * per-request input block. The prefixes are precomputed constants, identical for every request, so the
+ * model provider can cache them (Gemini implicit caching, or PromptPrefixCache by handle).
+ */
 public class PromptFactory {
 
+    private static final String ROLE = "You are a helpful social media copywriter.\n";
+
+    /** Prefix of {@link #buildPrompt}. */
+    public static final String PROMPT_PREFIX = ROLE
+            + "Produce output as strict JSON only (no commentary). The JSON must have keys: captions (array of short strings), hashtags (array), ideas (array of objects with title, description, imageIdea).\n"
+            + "\nRequirements:\n"
+            + "- Provide up to 10 short captions (max 150 chars each) in captions array.\n"
+            + "- Provide a list of up to 20 hashtags (include # prefix) in hashtags array.\n"
+            + "- Provide 3 post ideas with title, description (~30-60 chars), and an imageIdea short phrase.\n"
+            + "\nReturn only JSON and nothing else.\n"
+            + "\nExample JSON structure:\n"
+            + "{\n  \"captions\": [\"...\"],\n  \"hashtags\": [\"#tag1\",\"#tag2\"],\n  \"ideas\": [{\"title\":\"...\",\"description\":\"...\",\"imageIdea\":\"...\"}]\n}\n"
+            + "\nNow generate for this input:\n";
+
+    /** Prefix of {@link #buildMultiPlatformPrompt}. */
+    public static final String MULTI_PLATFORM_PROMPT_PREFIX = ROLE
+            + "Produce output as strict JSON only (no commentary). The JSON must be an object with exactly one key per platform listed in the input.\n"
+            + "Each value must have keys: captions (array of short strings), hashtags (array), ideas (array of objects with title, description, imageIdea), written for that platform.\n"
+            + "\nRequirements (per platform):\n"
+            + "- Provide up to 10 short captions (max 150 chars each) in captions array.\n"
+            + "- Provide a list of up to 20 hashtags (include # prefix) in hashtags array.\n"
+            + "- Provide 3 post ideas with title, description (~30-60 chars), and an imageIdea short phrase.\n"
+            + "- Adapt length, style and hashtag count to each platform's conventions.\n"
+            + "\nReturn only JSON and nothing else.\n"
+            + "\nExample JSON structure:\n"
+            + "{\n  \"<platform>\": {\"captions\": [\"...\"], \"hashtags\": [\"#tag1\",\"#tag2\"], \"ideas\": [{\"title\":\"...\",\"description\":\"...\",\"imageIdea\":\"...\"}]},\n  ...\n}\n"
+            + "\nNow generate for this input:\n";
+
+    private static final String STRUCTURED_REQUIREMENTS = "Write up to 10 short captions (max 150 chars each), "
+            + "up to 20 hashtags (with # prefix) and 3 post ideas (description ~30-60 chars, imageIdea a short phrase).\n";
+
+    /** Prefix of {@link #buildStructuredPrompt}. */
+    public static final String STRUCTURED_PROMPT_PREFIX = ROLE + STRUCTURED_REQUIREMENTS + "\n";
+
+    /** Prefix of {@link #buildStructuredMultiPlatformPrompt}. */
+    public static final String STRUCTURED_MULTI_PLATFORM_PROMPT_PREFIX = ROLE + STRUCTURED_REQUIREMENTS
+            + "Adapt length, style and hashtag count to each platform's conventions.\n\n";
+
+    /** Every static prefix (none is a prefix of another), for prefix caches to recognise. */
+    public static final List<String> PREFIXES = List.of(MULTI_PLATFORM_PROMPT_PREFIX, PROMPT_PREFIX,
+            STRUCTURED_MULTI_PLATFORM_PROMPT_PREFIX, STRUCTURED_PROMPT_PREFIX);
+
     /**
      * Build a clear prompt that instructs Gemini to return strict JSON with fields:
      * captions (array), hashtags (array), ideas (array of {title,description,imageIdea})
      */
     public static String buildPrompt(GenerateRequest req) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("You are a helpful social media copywriter.\n");
-        sb.append("Produce output as strict JSON only (no commentary). The JSON must have keys: captions (array of short strings), hashtags (array), ideas (array of objects with title, description, imageIdea).\n\n");
+        StringBuilder sb = new StringBuilder(PROMPT_PREFIX.length() + 128).append(PROMPT_PREFIX);
         sb.append("Platform: ").append(req.getPlatform()).append("\n");
-        sb.append("Industry: ").append(req.getIndustry()).append("\n");
-        sb.append("Tone: ").append(req.getTone() == null ? "friendly" : req.getTone()).append("\n");
-        if (req.getKeywords() != null && !req.getKeywords().isBlank()) {
-            sb.append("Keywords: ").append(req.getKeywords()).append("\n");
-        }
-        sb.append("\nRequirements:\n");
-        sb.append("- Provide up to 10 short captions (max 150 chars each) in captions array.\n");
-        sb.append("- Provide a list of up to 20 hashtags (include # prefix) in hashtags array.\n");
-        sb.append("- Provide 3 post ideas with title, description (~30-60 chars), and an imageIdea short phrase.\n");
-        sb.append("\nReturn only JSON and nothing else.\n");
-        sb.append("\nExample JSON structure:\n");
-        sb.append("{\n  \"captions\": [\"...\"],\n  \"hashtags\": [\"#tag1\",\"#tag2\"],\n  \"ideas\": [{\"title\":\"...\",\"description\":\"...\",\"imageIdea\":\"...\"}]\n}\n\n");
-        sb.append("Now generate for the input above.");
+        appendInput(sb, req.getIndustry(), req.getTone(), req.getKeywords());
         return sb.toString();
     }
-}
 
+    /**
+     * Prompt for structured-output mode: the JSON shape is enforced by the response schema
+     * (GeminiSchema.GENERATE_RESPONSE), so no format instructions or example block are needed.
+     */
+    public static String buildStructuredPrompt(GenerateRequest req) {
+        StringBuilder sb = new StringBuilder(STRUCTURED_PROMPT_PREFIX.length() + 128).append(STRUCTURED_PROMPT_PREFIX);
+        sb.append("Platform: ").append(req.getPlatform()).append("\n");
+        appendInput(sb, req.getIndustry(), req.getTone(), req.getKeywords());
+        return sb.toString();
+    }
+
+    /**
+     * Structured-output counterpart of {@link #buildMultiPlatformPrompt}; the schema is GeminiSchema.forPlatforms.
+     */
+    public static String buildStructuredMultiPlatformPrompt(MultiPlatformGenerateRequest req, List<String> platforms) {
+        StringBuilder sb = new StringBuilder(STRUCTURED_MULTI_PLATFORM_PROMPT_PREFIX.length() + 128)
+                .append(STRUCTURED_MULTI_PLATFORM_PROMPT_PREFIX);
+        sb.append("Platforms: ").append(String.join(", ", platforms)).append("\n");
+        appendInput(sb, req.getIndustry(), req.getTone(), req.getKeywords());
+        return sb.toString();
+    }
+
+    /**
+     * One prompt for several platforms: the model returns a single JSON object keyed by platform,
+     * each value having the same captions / hashtags / ideas shape as {@link #buildPrompt}.
+     * {@code platforms} are the canonical names (see GenerationKey.platform) used as JSON keys.
+     */
+    public static String buildMultiPlatformPrompt(MultiPlatformGenerateRequest req, List<String> platforms) {
+        StringBuilder sb = new StringBuilder(MULTI_PLATFORM_PROMPT_PREFIX.length() + 128).append(MULTI_PLATFORM_PROMPT_PREFIX);
+        sb.append("Platforms: ").append(String.join(", ", platforms)).append("\n");
+        appendInput(sb, req.getIndustry(), req.getTone(), req.getKeywords());
+        return sb.toString();
+    }
+
+    private static void appendInput(StringBuilder sb, String industry, String tone, String keywords) {
+        sb.append("Industry: ").append(industry).append("\n");
+        // same default as GenerationKey, so requests sharing a key also share a prompt
+        sb.append("Tone: ").append(tone == null || tone.isBlank() ? "friendly" : tone).append("\n");
+        if (keywords != null && !keywords.isBlank()) {
+            sb.append("Keywords: ").append(keywords).append("\n");
+        }
+    }
+}
@@ -1,48 +1,163 @@
 package com.social.aisocialcontentgenerator.util;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.social.aisocialcontentgenerator.dto.GenerateResponse;
 import com.social.aisocialcontentgenerator.dto.PostIdea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * Robust PromptParser:
  * - Accepts the modelText that Gemini returns (the inner text extracted from candidates[0].content.parts[0].text)
  * - Tries to find a JSON substring and parse it.
  * - If no JSON found or parse fails, falls back to a simple heuristic parser.
+ * The text is parsed as JSON at most twice (candidate, then the whole text only if it can start a JSON value)
+ * and the heuristic parser makes a single pass over the lines.
  */
 public class PromptParser {
 
+    private static final Logger log = LoggerFactory.getLogger(PromptParser.class);
     private static final ObjectMapper M = new ObjectMapper();
+    // strict: an unknown key or trailing text means the answer is not schema-shaped, so the heuristics take over
+    private static final ObjectReader STRUCTURED = M.readerFor(GenerateResponse.class)
+            .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r?\\n");
+    private static final Pattern BLANK_LINE = Pattern.compile("\\r?\\n\\r?\\n");
+    private static final Pattern TAG_SEPARATOR = Pattern.compile("[,\\n]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[,.;:]$");
+
+    /**
+     * Which way a model answer was parsed (tag value: lower-case name).
+     * - STRUCTURED: bound straight to GenerateResponse (parseStructured)
+     * - JSON: the answer is a bare JSON object
+     * - FENCED_JSON: a JSON object inside code fences or commentary
+     * - FULL_TEXT_JSON: the whole text as JSON after the object search failed
+     * - PLAIN_TEXT: heuristic line parsing
+     * - EMPTY: no answer
+     */
+    public enum ParsePath {
+        STRUCTURED, JSON, FENCED_JSON, FULL_TEXT_JSON, PLAIN_TEXT, EMPTY;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    /** A parsed answer and the path that produced it. */
+    public record Parsed(GenerateResponse response, ParsePath path) {
+    }
 
     public static GenerateResponse parse(String modelText) {
+        return parseWithPath(modelText).response();
+    }
+
+    /**
+     * {@link #parse}, also reporting which path won.
+     */
+    public static Parsed parseWithPath(String modelText) {
         if (modelText == null) {
-            return emptyResponse();
+            return new Parsed(emptyResponse(), ParsePath.EMPTY);
         }
 
         // 1) Try to extract JSON substring (handles code fences and extra commentary)
         String jsonCandidate = extractJsonSubstring(modelText);
         if (jsonCandidate != null) {
             try {
-                return parseFromJson(jsonCandidate);
+                GenerateResponse resp = parseFromJson(jsonCandidate);
+                boolean bare = jsonCandidate.length() == modelText.length() || jsonCandidate.length() == modelText.trim().length();
+                return new Parsed(resp, bare ? ParsePath.JSON : ParsePath.FENCED_JSON);
             } catch (Exception e) {
                 // parsing failed — fall through to fallback
-                System.err.println("PromptParser: JSON parse failed: " + e.getMessage());
+                log.debug("PromptParser: JSON parse failed: {}", e.getMessage());
             }
         }
 
-        // 2) Try to parse the full text as JSON (some providers return raw JSON)
-        try {
-            return parseFromJson(modelText);
-        } catch (Exception ignored) {
+        // 2) Try to parse the full text as JSON (some providers return raw JSON);
+        //    pointless when it is the candidate that just failed or cannot start a JSON value
+        boolean sameAsCandidate = jsonCandidate != null && jsonCandidate.length() == modelText.length();
+        if (!sameAsCandidate && mayStartJson(modelText)) {
+            try {
+                return new Parsed(parseFromJson(modelText), ParsePath.FULL_TEXT_JSON);
+            } catch (Exception ignored) {
+            }
         }
 
         // 3) Fallback heuristic parsing (plain text)
-        return parseFromPlainText(modelText);
+        return new Parsed(parseFromPlainText(modelText), ParsePath.PLAIN_TEXT);
+    }
+
+    /**
+     * Parse the answer to a structured-output call (JSON constrained by GeminiSchema.GENERATE_RESPONSE):
+     * binds straight to GenerateResponse, no searching or guessing. Anything that does not bind
+     * (a backend without structured output, free-text answers from the cache) goes through {@link #parse}.
+     */
+    public static GenerateResponse parseStructured(String modelText) {
+        return parseStructuredWithPath(modelText).response();
+    }
+
+    /**
+     * {@link #parseStructured}, also reporting which path won (STRUCTURED unless it fell back).
+     */
+    public static Parsed parseStructuredWithPath(String modelText) {
+        if (modelText == null) {
+            return new Parsed(emptyResponse(), ParsePath.EMPTY);
+        }
+        if (startsWithObject(modelText)) {
+            try {
+                GenerateResponse resp = STRUCTURED.readValue(modelText);
+                if (resp != null) return new Parsed(normalize(resp), ParsePath.STRUCTURED);
+            } catch (Exception e) {
+                log.debug("PromptParser: structured output did not bind: {}", e.getMessage());
+            }
+        }
+        return parseWithPath(modelText);
+    }
+
+    /**
+     * Split the answer to a multi-platform prompt into each platform's own JSON text, which {@link #parse}
+     * handles like a single-platform answer. Keys of the model output are matched on their canonical
+     * platform name ("LinkedIn", "twitter" -> linkedin, x). Platforms missing from the output map to null.
+     */
+    public static Map<String, String> splitByPlatform(String modelText, List<String> platforms) {
+        Map<String, String> sections = new LinkedHashMap<>();
+        for (String platform : platforms) sections.put(platform, null);
+        if (modelText == null) return sections;
+
+        JsonNode root = null;
+        String jsonCandidate = extractJsonSubstring(modelText);
+        try {
+            root = M.readTree(jsonCandidate != null ? jsonCandidate : modelText);
+        } catch (Exception e) {
+            log.debug("PromptParser: multi-platform JSON parse failed: {}", e.getMessage());
+        }
+        if (root == null || !root.isObject()) return sections;
+
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            String platform = GenerationKey.platform(field.getKey());
+            if (sections.containsKey(platform) && sections.get(platform) == null && field.getValue().isObject()) {
+                sections.put(platform, field.getValue().toString());
+            }
+        }
+        return sections;
     }
 
     // ===== Helpers =====
@@ -59,7 +174,7 @@ public class PromptParser {
             for (JsonNode n : capsNode) captions.add(n.asText());
         } else if (capsNode.isTextual()) {
             // maybe a single string with newlines
-            for (String line : capsNode.asText().split("\\r?\\n")) {
+            for (String line : LINE_BREAK.split(capsNode.asText())) {
                 String t = line.trim();
                 if (!t.isEmpty()) captions.add(t);
             }
@@ -72,11 +187,11 @@ public class PromptParser {
         } else if (tagsNode.isTextual()) {
             // extract tokens starting with # or split by commas
             String text = tagsNode.asText();
-            for (String token : text.split("[,\\n]")) {
+            for (String token : TAG_SEPARATOR.split(text)) {
                 token = token.trim();
                 if (token.isEmpty()) continue;
                 if (token.startsWith("#")) hashtags.add(token);
-                else hashtags.add("#" + token.replaceAll("\\s+", ""));
+                else hashtags.add("#" + WHITESPACE.matcher(token).replaceAll(""));
             }
         }
 
@@ -91,7 +206,7 @@ public class PromptParser {
             }
         } else if (root.has("ideas") && root.get("ideas").isTextual()) {
             // text block -> split heuristically into 3 ideas
-            String[] blocks = root.get("ideas").asText().split("\\r?\\n\\r?\\n");
+            String[] blocks = BLANK_LINE.split(root.get("ideas").asText());
             for (String b : blocks) {
                 String title = b.lines().findFirst().orElse("").trim();
                 String desc = b.trim();
@@ -116,52 +231,95 @@ public class PromptParser {
         return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : "";
     }
 
+    private static boolean startsWithObject(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c > ' ') return c == '{';
+        }
+        return false;
+    }
+
+    // same defaults as parseFromJson: missing lists are empty, missing idea fields are ""
+    private static GenerateResponse normalize(GenerateResponse resp) {
+        if (resp.getCaptions() == null) resp.setCaptions(new ArrayList<>());
+        if (resp.getHashtags() == null) resp.setHashtags(new ArrayList<>());
+        if (resp.getIdeas() == null) resp.setIdeas(new ArrayList<>());
+        for (int i = 0; i < resp.getIdeas().size(); i++) {
+            PostIdea idea = resp.getIdeas().get(i);
+            if (idea == null) {
+                resp.getIdeas().set(i, new PostIdea("", "", ""));
+                continue;
+            }
+            if (idea.getTitle() == null) idea.setTitle("");
+            if (idea.getDescription() == null) idea.setDescription("");
+            if (idea.getImageIdea() == null) idea.setImageIdea("");
+        }
+        return resp;
+    }
+
+    // Jackson accepts a document only if it starts with one of these; blank text reads as an empty document
+    private static boolean mayStartJson(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ') continue;
+            return c >= 128 || "{[\"-0123456789tfn".indexOf(c) >= 0;
+        }
+        return true;
+    }
+
+    /**
+     * Heuristic parser for plain text, one pass over the lines:
+     * - captions: non-empty lines (bullets stripped) up to 10, skipping commentary ("Sure", "Here ...")
+     * - hashtags: tokens of hashtag lines among those, then any other #token in the text, once each
+     * - ideas: the first 3 lines starting with "idea" or containing ':'
+     */
     private static GenerateResponse parseFromPlainText(String text) {
         List<String> captions = new ArrayList<>();
         List<String> hashtags = new ArrayList<>();
+        List<String> inlineTags = new ArrayList<>();
         List<PostIdea> ideas = new ArrayList<>();
+        boolean captionsDone = false;
 
-        // split by lines, collect non-empty lines as captions until ~10
-        String[] lines = text.split("\\r?\\n");
-        for (String line : lines) {
-            String t = line.trim();
-            if (t.isEmpty()) continue;
-            // skip lines that look like commentary
-            if (t.toLowerCase().startsWith("sure") || t.toLowerCase().startsWith("here")) continue;
-            // if line is a hashtag list
-            if (t.startsWith("#") || t.contains(" #")) {
-                // split words that start with #
-                for (String token : t.split("\\s+")) {
-                    token = token.trim();
-                    if (token.startsWith("#")) hashtags.add(token.replaceAll("[,.;:]$", ""));
-                }
-                continue;
-            }
-            // if line starts with a bullet or dash, strip it
-            if (t.startsWith("-") || t.startsWith("*")) {
-                t = t.substring(1).trim();
-            }
-            // treat as caption
-            captions.add(t);
-            if (captions.size() >= 10) break;
-        }
+        int len = text.length();
+        int start = 0;
+        while (true) {
+            int newline = text.indexOf('\n', start);
+            int end = newline < 0 ? len : newline;
+            collectHashtags(text, start, end, inlineTags);
 
-        // Try to extract hashtags from the whole text as fallback: words beginning with #
-        for (String token : text.split("\\s+")) {
-            if (token.startsWith("#")) {
-                String clean = token.replaceAll("[,.;:]$", "");
-                if (!hashtags.contains(clean)) hashtags.add(clean);
+            // trim() bounds without copying the untrimmed line ('\r' of "\r\n" is trimmed too)
+            int from = start;
+            int to = end;
+            while (from < to && text.charAt(from) <= ' ') from++;
+            while (to > from && text.charAt(to - 1) <= ' ') to--;
+            if (from < to) {
+                String t = text.substring(from, to);
+                if (!captionsDone && !isCommentary(t)) {
+                    if (t.startsWith("#") || t.contains(" #")) {
+                        // hashtag list line
+                        for (String token : WHITESPACE.split(t)) {
+                            token = token.trim();
+                            if (token.startsWith("#")) hashtags.add(stripTrailingPunctuation(token));
+                        }
+                    } else {
+                        // strip a leading bullet or dash, treat the rest as a caption
+                        captions.add(t.startsWith("-") || t.startsWith("*") ? t.substring(1).trim() : t);
+                        captionsDone = captions.size() >= 10;
+                    }
+                }
+                if (ideas.size() < 3 && (t.indexOf(':') >= 0 || startsWithLowerCase(t, "idea"))) {
+                    String title = t.length() > 40 ? t.substring(0, 40) + "..." : t;
+                    ideas.add(new PostIdea(title, t, ""));
+                }
             }
+            if (newline < 0) break;
+            start = newline + 1;
         }
 
-        // Simple heuristic for ideas: look for lines with ':' or 'Idea' keywords
-        for (String line : lines) {
-            String t = line.trim();
-            if (t.toLowerCase().startsWith("idea") || t.contains(":")) {
-                String title = t.length() > 40 ? t.substring(0, 40) + "..." : t;
-                ideas.add(new PostIdea(title, t, ""));
-                if (ideas.size() >= 3) break;
-            }
+        // hashtags found anywhere in the text, in order, after those of the hashtag lines
+        Set<String> seen = new HashSet<>(hashtags);
+        for (String tag : inlineTags) {
+            if (seen.add(tag)) hashtags.add(tag);
         }
 
         // Fill placeholders if empty
@@ -175,6 +333,42 @@ public class PromptParser {
         return resp;
     }
 
+    // whitespace-separated tokens of text[from, to) that start with '#', as text.split("\\s+") would cut them
+    private static void collectHashtags(String text, int from, int to, List<String> out) {
+        int i = text.indexOf('#', from);
+        while (i >= 0 && i < to) {
+            int tokenEnd = i + 1;
+            while (tokenEnd < to && !isRegexWhitespace(text.charAt(tokenEnd))) tokenEnd++;
+            if (i == from || isRegexWhitespace(text.charAt(i - 1))) {
+                out.add(stripTrailingPunctuation(text.substring(i, tokenEnd)));
+            }
+            i = text.indexOf('#', tokenEnd);
+        }
+    }
+
+    // the characters of the regex class \s
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isCommentary(String t) {
+        return startsWithLowerCase(t, "sure") || startsWithLowerCase(t, "here");
+    }
+
+    // t.toLowerCase().startsWith(prefix), lower-casing only lines whose first character can match
+    private static boolean startsWithLowerCase(String t, String prefix) {
+        char first = t.charAt(0);
+        if (first < 128 && Character.toLowerCase(first) != prefix.charAt(0)) return false;
+        return t.toLowerCase().startsWith(prefix);
+    }
+
+    // token.replaceAll("[,.;:]$", ""); the regex only runs when the token ends in punctuation or a line terminator
+    private static String stripTrailingPunctuation(String token) {
+        char last = token.charAt(token.length() - 1);
+        if (",.;:".indexOf(last) < 0 && last != '\u0085' && last != '\u2028' && last != '\u2029') return token;
+        return TRAILING_PUNCTUATION.matcher(token).replaceAll("");
+    }
+
     /**
      * Find the first JSON object substring in the input text by scanning for a balanced '{' ... '}' block.
      * Returns null if none found.
@@ -0,0 +1,130 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.dto.GenerationStreamEvent;
+import com.social.aisocialcontentgenerator.dto.PostIdea;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for streamed model text.
+ * - Text is fed chunk by chunk as it arrives from the LLM.
+ * - Anything before the first '{' (code fences, commentary) is skipped.
+ * - Every completed element of the top-level captions / hashtags arrays and every completed
+ *   object of the ideas array is emitted as soon as its closing quote / brace arrives.
+ * The full text is kept so the caller can run {@link PromptParser#parse} once the stream completes.
+ * Not thread-safe: one instance per stream.
+ */
+public class StreamingPromptParser {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingPromptParser.class);
+    private static final ObjectMapper M = new ObjectMapper();
+
+    private final StringBuilder buf = new StringBuilder();
+    private int pos;            // next char to scan
+    private int depth;          // 0 = before root object, 1 = inside root, 2 = inside a root array, ...
+    private boolean inString;
+    private boolean escaped;
+    private boolean done;
+    private int stringStart = -1;
+    private int elementStart = -1;
+    private String lastString;  // last string literal seen at depth 1 (candidate key)
+    private String currentKey;  // key whose value is being read at depth 1
+    private String arrayKey;    // key of the array currently open at depth 2
+
+    /**
+     * Append a chunk of model text and return the events completed by it (possibly empty).
+     */
+    public List<GenerationStreamEvent> feed(String chunk) {
+        List<GenerationStreamEvent> events = new ArrayList<>();
+        buf.append(chunk);
+        for (; pos < buf.length() && !done; pos++) {
+            char c = buf.charAt(pos);
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (c == '\\') escaped = true;
+                else if (c == '"') {
+                    inString = false;
+                    onStringEnd(events);
+                }
+                continue;
+            }
+            if (depth == 0) {
+                if (c == '{') depth = 1;
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringStart = pos;
+                }
+                case ':' -> {
+                    if (depth == 1) currentKey = lastString;
+                }
+                case '[', '{' -> {
+                    if (depth == 1 && c == '[') arrayKey = currentKey;
+                    if (depth == 2 && c == '{') elementStart = pos;
+                    depth++;
+                }
+                case ']', '}' -> {
+                    depth--;
+                    if (depth == 2 && c == '}' && elementStart >= 0) {
+                        onObjectEnd(events);
+                        elementStart = -1;
+                    }
+                    if (depth == 1) arrayKey = null;
+                    if (depth == 0) done = true;
+                }
+                default -> {
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Everything fed so far.
+     */
+    public String text() {
+        return buf.toString();
+    }
+
+    private void onStringEnd(List<GenerationStreamEvent> events) {
+        String value = decodeString(buf.substring(stringStart, pos + 1));
+        if (depth == 1) {
+            lastString = value;
+        } else if (depth == 2 && value != null) {
+            if ("captions".equals(arrayKey)) events.add(new GenerationStreamEvent(GenerationStreamEvent.CAPTION, value));
+            else if ("hashtags".equals(arrayKey)) events.add(new GenerationStreamEvent(GenerationStreamEvent.HASHTAG, value));
+        }
+    }
+
+    private void onObjectEnd(List<GenerationStreamEvent> events) {
+        if (!"ideas".equals(arrayKey)) return;
+        try {
+            JsonNode item = M.readTree(buf.substring(elementStart, pos + 1));
+            PostIdea idea = new PostIdea(safeText(item, "title"), safeText(item, "description"), safeText(item, "imageIdea"));
+            events.add(new GenerationStreamEvent(GenerationStreamEvent.IDEA, idea));
+        } catch (Exception e) {
+            // malformed element: skip it, the final parse decides what the client gets
+            log.debug("StreamingPromptParser: idea parse failed: {}", e.getMessage());
+        }
+    }
+
+    private static String decodeString(String literal) {
+        try {
+            return M.readValue(literal, String.class);
+        } catch (Exception e) {
+            log.debug("StreamingPromptParser: string decode failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String safeText(JsonNode node, String field) {
+        return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : "";
+    }
+}
@@ -0,0 +1,150 @@
+package com.social.aisocialcontentgenerator.config;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.User;
+import com.social.aisocialcontentgenerator.repository.UserRepository;
+import com.social.aisocialcontentgenerator.service.AccountCache;
+import com.social.aisocialcontentgenerator.util.JwtUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AccountCache accountCache = new AccountCache(userRepository, Duration.ofMinutes(1), 100);
+    private JwtUtils jwtUtils;
+    private JwtAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = jwtUtils(60_000);
+        filter = new JwtAuthFilter(jwtUtils, userRepository, accountCache);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsTokenTakesTheCurrentPlanFromTheAccountCache() throws Exception {
+        // token issued while FREE, upgraded since
+        when(userRepository.findAccountById(42L)).thenReturn(Optional.of(account(Plan.PRO)));
+
+        authenticate(jwtUtils.generateToken(user(Plan.FREE)));
+        authenticate(jwtUtils.generateToken(user(Plan.FREE)));
+
+        AuthPrincipal principal = (AuthPrincipal) authentication().getPrincipal();
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getPlan()).isEqualTo(Plan.PRO);
+        verify(userRepository, times(1)).findAccountById(42L);
+        verify(userRepository, never()).findByEmail(any());
+
+        // a plan change evicts the entry
+        when(userRepository.findAccountById(42L)).thenReturn(Optional.of(account(Plan.FREE)));
+        accountCache.evict(42L);
+        authenticate(jwtUtils.generateToken(user(Plan.PRO)));
+        assertThat(((AuthPrincipal) authentication().getPrincipal()).getPlan()).isEqualTo(Plan.FREE);
+    }
+
+    @Test
+    void roleComesFromTheUsersTable() throws Exception {
+        when(userRepository.findAccountById(42L)).thenReturn(Optional.of(account(Plan.PRO, "ADMIN")));
+
+        authenticate(jwtUtils.generateToken(user(Plan.PRO)));
+
+        assertThat(authentication().getAuthorities()).extracting(Object::toString).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void legacyTokenFallsBackToTheEmailLookup() throws Exception {
+        when(userRepository.findByEmail("jwt@test.dev")).thenReturn(Optional.of(user(Plan.PRO)));
+
+        authenticate(jwtUtils.generateToken("jwt@test.dev"));
+
+        AuthPrincipal principal = (AuthPrincipal) authentication().getPrincipal();
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getPlan()).isEqualTo(Plan.PRO);
+        assertThat(authentication().getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void unknownInvalidAndExpiredTokensAreNotAuthenticated() throws Exception {
+        when(userRepository.findAccountById(42L)).thenReturn(Optional.empty());
+        when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
+
+        for (String token : new String[]{jwtUtils.generateToken(user(Plan.FREE)), jwtUtils.generateToken("gone@test.dev"),
+                "not a token", jwtUtils(-60_000).generateToken(user(Plan.FREE))}) {
+            MockFilterChain chain = authenticate(token);
+            assertThat(authentication()).as(token).isNull();
+            // the request still goes on, to be rejected by the authorization rules
+            assertThat(chain.getRequest()).isNotNull();
+        }
+    }
+
+    private MockFilterChain authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/generate");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    private static Authentication authentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static JwtUtils jwtUtils(long expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "test_secret_test_secret_test_secret_test_secret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private static User user(Plan plan) {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("jwt@test.dev");
+        user.setPlan(plan);
+        return user;
+    }
+
+    private static UserRepository.AccountView account(Plan plan) {
+        return account(plan, "USER");
+    }
+
+    private static UserRepository.AccountView account(Plan plan, String role) {
+        return new UserRepository.AccountView() {
+            @Override
+            public Plan getPlan() {
+                return plan;
+            }
+
+            @Override
+            public String getRole() {
+                return role;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.social.aisocialcontentgenerator.repository;
+
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.User;
+import com.social.aisocialcontentgenerator.util.AppConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many parallel generation requests from one FREE user: exactly FREE_DAILY_LIMIT of them may pass.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every thread must see committed rows
+class UserRepositoryUsageConcurrencyTest {
+
+    private static final int PARALLEL_REQUESTS = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelReservationsNeverExceedFreeLimit() throws Exception {
+        User user = saveUser(Plan.FREE, 0, LocalDate.now());
+
+        assertThat(reserveInParallel(user.getId())).isEqualTo(AppConstants.FREE_DAILY_LIMIT);
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getDailyUsage())
+                .isEqualTo(AppConstants.FREE_DAILY_LIMIT);
+    }
+
+    @Test
+    void staleCounterIsResetOnANewDay() throws Exception {
+        User user = saveUser(Plan.FREE, AppConstants.FREE_DAILY_LIMIT, LocalDate.now().minusDays(1));
+
+        assertThat(reserveInParallel(user.getId())).isEqualTo(AppConstants.FREE_DAILY_LIMIT);
+        User reloaded = userRepository.findById(user.getId()).orElseThrow();
+        assertThat(reloaded.getLastUsageDate()).isEqualTo(LocalDate.now());
+        assertThat(reloaded.getDailyUsage()).isEqualTo(AppConstants.FREE_DAILY_LIMIT);
+    }
+
+    @Test
+    void proUsersAreNotLimited() throws Exception {
+        User user = saveUser(Plan.PRO, 0, null);
+
+        assertThat(reserveInParallel(user.getId())).isEqualTo(PARALLEL_REQUESTS);
+        assertThat(userRepository.findById(user.getId()).orElseThrow().getDailyUsage()).isEqualTo(PARALLEL_REQUESTS);
+    }
+
+    @Test
+    void refundFreesAUnit() {
+        User user = saveUser(Plan.FREE, AppConstants.FREE_DAILY_LIMIT, LocalDate.now());
+        LocalDate today = LocalDate.now();
+
+        assertThat(userRepository.reserveDailyUsage(user.getId(), 1, today, Plan.FREE, AppConstants.FREE_DAILY_LIMIT)).isZero();
+        assertThat(userRepository.refundDailyUsage(user.getId(), 1, today)).isEqualTo(1);
+        assertThat(userRepository.reserveDailyUsage(user.getId(), 1, today, Plan.FREE, AppConstants.FREE_DAILY_LIMIT)).isEqualTo(1);
+    }
+
+    private int reserveInParallel(Long userId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return userRepository.reserveDailyUsage(userId, 1, LocalDate.now(), Plan.FREE, AppConstants.FREE_DAILY_LIMIT);
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> f : results) granted += f.get();
+            return granted;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private User saveUser(Plan plan, int dailyUsage, LocalDate lastUsageDate) {
+        User user = new User();
+        user.setEmail("free-" + System.nanoTime() + "@test.dev");
+        user.setPasswordHash("x");
+        user.setPlan(plan);
+        user.setDailyUsage(dailyUsage);
+        user.setLastUsageDate(lastUsageDate);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,52 @@
+package com.social.aisocialcontentgenerator.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * LLMService stand-in for tests. Every non-blocking call (plain, plan-aware, usage-reporting) subscribes
+ * anew to the answer for its prompt; the blocking path is not expected and throws.
+ */
+public class FakeLlm implements LLMService {
+
+    private final Function<String, Mono<String>> answer;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private FakeLlm(Function<String, Mono<String>> answer) {
+        this.answer = answer;
+    }
+
+    public static FakeLlm answering(Supplier<Mono<String>> answer) {
+        return new FakeLlm(prompt -> answer.get());
+    }
+
+    public static FakeLlm answering(String text, Duration latency) {
+        return new FakeLlm(prompt -> Mono.delay(latency).thenReturn(text));
+    }
+
+    public static FakeLlm byPrompt(Function<String, Mono<String>> answer) {
+        return new FakeLlm(answer);
+    }
+
+    /** Calls subscribed so far. */
+    public int calls() {
+        return calls.get();
+    }
+
+    @Override
+    public String callModel(String prompt, Long userId) {
+        throw new UnsupportedOperationException("blocking path not expected");
+    }
+
+    @Override
+    public Mono<String> callModelAsync(String prompt, Long userId) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return answer.apply(prompt);
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class GenerationCacheTest {
+
+    private static final String ANSWER = "{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}";
+    private static final AuthPrincipal FREE = new AuthPrincipal(1L, "free@test.dev", Plan.FREE);
+    private static final AuthPrincipal OTHER_FREE = new AuthPrincipal(2L, "free2@test.dev", Plan.FREE);
+    private static final AuthPrincipal PRO = new AuthPrincipal(3L, "pro@test.dev", Plan.PRO);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UsageService usageService = mock(UsageService.class);
+    private final GenerationHistoryWriter historyWriter = mock(GenerationHistoryWriter.class);
+    private final FakeLlm llm = FakeLlm.answering(() -> Mono.just(ANSWER));
+
+    @Test
+    void hitSkipsTheModelButStillChargesUsageAndWritesHistory() {
+        GenerationService service = service(llm, cache(true, DataSize.ofMegabytes(1)));
+
+        service.generateForUser(FREE, request("gym"));
+        service.generateForUser(FREE, request("GYM "));
+
+        assertThat(llm.calls()).isEqualTo(1);
+        verify(usageService, times(2)).reserve(1L, 1);
+        verify(historyWriter, times(2)).enqueue(any(GenerationHistory.class));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", GenerationCache.NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        GenerationCache cache = cache(false, DataSize.ofMegabytes(1));
+        cache.put("k", ANSWER);
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.stats()).containsEntry("enabled", false).containsEntry("entries", 0L);
+
+        GenerationService service = service(llm, cache);
+        service.generateForUser(FREE, request("gym"));
+        service.generateForUser(FREE, request("gym"));
+        assertThat(llm.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void blankAnswersAreNotCached() {
+        GenerationCache cache = cache(true, DataSize.ofMegabytes(1));
+        cache.put("k", " ");
+        cache.put("n", null);
+
+        assertThat(cache.get("k")).isNull();
+        assertThat(cache.get("n")).isNull();
+    }
+
+    @Test
+    void entriesAreWeighedByTheirSize() {
+        GenerationCache cache = cache(true, DataSize.ofMegabytes(1));
+        cache.put("k", "x".repeat(1000));
+
+        // 96 bytes of String headers plus two bytes per character of key and value
+        await().atMost(Duration.ofSeconds(5)).until(() -> cache.stats().get("weightedBytes").equals(96L + 2 + 2000));
+    }
+
+    @Test
+    void memoryBudgetBoundsTheCache() {
+        GenerationCache cache = cache(true, DataSize.ofKilobytes(10));
+        for (int i = 0; i < 50; i++) cache.put("k" + i, "x".repeat(1000)); // ~2 KB each
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> (long) cache.stats().get("evictions") > 0
+                && (long) cache.stats().get("weightedBytes") <= 10 * 1024);
+        assertThat((long) cache.stats().get("entries")).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void plansOnDifferentModelsDoNotShareAnswers() {
+        LLMService tiered = new LLMService() {
+            @Override
+            public String callModel(String prompt, Long userId) {
+                throw new UnsupportedOperationException("blocking path not expected");
+            }
+
+            @Override
+            public Mono<String> callModelAsync(String prompt, Long userId) {
+                return llm.callModelAsync(prompt, userId);
+            }
+
+            @Override
+            public String modelTier(Plan plan) {
+                return plan == Plan.PRO ? "pro-model" : "flash-model";
+            }
+        };
+        GenerationService service = service(tiered, cache(true, DataSize.ofMegabytes(1)));
+
+        service.generateForUser(FREE, request("gym"));
+        service.generateForUser(OTHER_FREE, request("gym")); // same plan: shared
+        service.generateForUser(PRO, request("gym"));        // other model: its own call
+
+        assertThat(llm.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void singleModelSharesAnswersAcrossPlans() {
+        GenerationService service = service(llm, cache(true, DataSize.ofMegabytes(1)));
+
+        service.generateForUser(FREE, request("gym"));
+        service.generateForUser(PRO, request("gym"));
+
+        assertThat(llm.calls()).isEqualTo(1);
+    }
+
+    private GenerationCache cache(boolean enabled, DataSize maxMemory) {
+        return new GenerationCache(enabled, maxMemory, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    private GenerationService service(LLMService llmService, GenerationCache cache) {
+        return new GenerationService(llmService, historyWriter, usageService, cache, new GenerationCoalescer(meterRegistry),
+                new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry), Runnable::run, 50, 16, true);
+    }
+
+    private static GenerateRequest request(String keywords) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform("instagram");
+        req.setIndustry("fitness");
+        req.setKeywords(keywords);
+        return req;
+    }
+}
@@ -0,0 +1,92 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class GenerationCoalescerTest {
+
+    private static final int CONCURRENT_REQUESTS = 50;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GenerationCoalescer coalescer = new GenerationCoalescer(meterRegistry);
+    private final ExecutorService requestThreads = Executors.newFixedThreadPool(16);
+    private final ExecutorService taskExecutor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        requestThreads.shutdownNow();
+        taskExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneLlmCall() throws Exception {
+        FakeLlm llm = FakeLlm.answering("{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}", Duration.ofMillis(300));
+        // cache off, so only the coalescer can collapse the requests
+        GenerationService service = new GenerationService(llm, mock(GenerationHistoryWriter.class), mock(UsageService.class),
+                new GenerationCache(false, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry),
+                coalescer, new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry),
+                taskExecutor, 50, 16, true);
+        AuthPrincipal principal = new AuthPrincipal(1L, "same@test.dev", Plan.FREE);
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<CompletableFuture<GenerateResponse>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            // same generation, spelled differently
+            String keywords = i % 2 == 0 ? "leg day, squats" : " Squats ,LEG DAY ";
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return service.generateForUserAsync(principal, request(keywords));
+            }, requestThreads).thenCompose(f -> f));
+        }
+        go.countDown();
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertThat(results).allSatisfy(f -> assertThat(f.join().getCaptions()).containsExactly("c"));
+        assertThat(llm.calls()).isEqualTo(1);
+        assertThat(meterRegistry.get("generation.coalescer.calls").tag("role", "follower").counter().count())
+                .isEqualTo(CONCURRENT_REQUESTS - 1);
+        assertThat(meterRegistry.get("generation.coalescer.in_flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void callThatThrowsBeforeSubscribingReleasesItsKey() {
+        assertThatThrownBy(() -> coalescer.execute("k", () -> {
+            throw new IllegalStateException("no backend");
+        }).block(Duration.ofSeconds(5))).hasMessageContaining("no backend");
+
+        assertThat(meterRegistry.get("generation.coalescer.in_flight").gauge().value()).isZero();
+        assertThat(coalescer.execute("k", () -> Mono.just("retried")).block(Duration.ofSeconds(5))).isEqualTo("retried");
+    }
+
+    private static GenerateRequest request(String keywords) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform("instagram");
+        req.setIndustry("fitness");
+        req.setKeywords(keywords);
+        return req;
+    }
+}
@@ -0,0 +1,183 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.PostIdea;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import com.social.aisocialcontentgenerator.entity.GenerationOutput;
+import com.social.aisocialcontentgenerator.entity.GenerationOutputConverter;
+import com.social.aisocialcontentgenerator.repository.GenerationHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * generation_history rows written by GenerationHistoryWriter and re-encoded by GenerationHistoryMigration,
+ * read back through JPA.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class GenerationHistoryStorageTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GenerationHistoryRepository historyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void cleanUp() {
+        historyRepository.deleteAll();
+    }
+
+    @Test
+    void writerStoresTheAnswerCompressed() throws Exception {
+        GenerateResponse answer = answer();
+        GenerationHistory row = new GenerationHistory();
+        row.setUserId(1L);
+        row.setPlatform("instagram");
+        row.setOutput(GenerationOutput.of(answer));
+        // not started: enqueue writes on the calling thread
+        writer().enqueue(row);
+
+        GenerationHistory stored = historyRepository.findByUserIdOrderByCreatedAtDesc(1L).get(0);
+        assertThat(stored.getOutputJson()).isNull();
+        assertThat(stored.getOutput().response()).usingRecursiveComparison().isEqualTo(answer);
+        int json = new ObjectMapper().writeValueAsBytes(answer).length;
+        assertThat(meterRegistry.get("generation.history.output.size").summary().max()).isLessThan(json * 0.8);
+    }
+
+    @Test
+    void writerRetriesARejectedBatchRowByRow() {
+        GenerationHistoryWriter writer = writer();
+        writer.start();
+        try {
+            writer.enqueue(row("instagram"));
+            writer.enqueue(row("x".repeat(300))); // too long for the column
+            writer.enqueue(row("linkedin"));
+        } finally {
+            writer.stop();
+        }
+
+        assertThat(historyRepository.findByUserIdOrderByCreatedAtDesc(3L)).extracting(GenerationHistory::getPlatform)
+                .containsExactlyInAnyOrder("instagram", "linkedin");
+        assertThat(meterRegistry.get("generation.history.failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void migrationEncodesParseableRowsAndKeepsRawTextUntilDropped() {
+        long fenced = insertLegacy("```json\n{\"captions\": [\"Leg day\"], \"hashtags\": [\"#legday\"], \"ideas\": []}\n```\nEnjoy!");
+        long plain = insertLegacy("Captions:\n- Squat heavy\nHashtags: #gym");
+
+        GenerationHistoryMigration migration = migration(false);
+        assertThat(migration.migrateBatch()).isEqualTo(1);
+        assertThat(migration.migrateBatch()).isEqualTo(1);
+        assertThat(migration.migrateBatch()).isZero();
+
+        GenerationHistory encoded = historyRepository.findById(fenced).orElseThrow();
+        assertThat(encoded.getOutput().response().getCaptions()).containsExactly("Leg day");
+        assertThat(encoded.getOutputJson()).startsWith("```json");
+        // a heuristic parse would store placeholders as if the model had written them
+        GenerationHistory heuristic = historyRepository.findById(plain).orElseThrow();
+        assertThat(heuristic.getOutput()).isNull();
+        assertThat(heuristic.getOutputJson()).startsWith("Captions:");
+        assertThat(meterRegistry.get("generation.history.migrated").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("generation.history.migration.skipped").counter().count()).isEqualTo(1);
+
+        // a later pass with drop-raw clears the raw text of encoded rows only
+        GenerationHistoryMigration dropping = migration(true);
+        while (dropping.migrateBatch() > 0) {
+        }
+        assertThat(historyRepository.findById(fenced).orElseThrow().getOutputJson()).isNull();
+        assertThat(historyRepository.findById(plain).orElseThrow().getOutputJson()).startsWith("Captions:");
+    }
+
+    @Test
+    void migrationCountsOnlyRowsItWrote() {
+        long id = insertLegacy("{\"captions\": [\"Leg day\"], \"hashtags\": [], \"ideas\": []}");
+        JdbcTemplate racing = spy(jdbcTemplate);
+        doAnswer(inv -> {
+            Object rows = inv.callRealMethod();
+            // another instance encodes the row between this one's SELECT and UPDATE
+            jdbcTemplate.update("UPDATE generation_history SET output = ? WHERE id = ?",
+                    GenerationOutputConverter.encode(answer()), id);
+            return rows;
+        }).when(racing).query(anyString(), any(RowMapper.class), any(Object[].class));
+
+        new GenerationHistoryMigration(racing, meterRegistry, true, false, 10, 3).migrateBatch();
+
+        assertThat(meterRegistry.get("generation.history.migrated").counter().count()).isZero();
+        assertThat(historyRepository.findById(id).orElseThrow().getOutput().response().getCaptions())
+                .isEqualTo(answer().getCaptions());
+    }
+
+    @Test
+    void migrationStopsAfterRepeatedFailures() {
+        jdbcTemplate.execute("ALTER TABLE generation_history RENAME TO generation_history_away");
+        try {
+            GenerationHistoryMigration migration = migration(false);
+            for (int i = 0; i < 3; i++) migration.run();
+            assertThat(migration).extracting("done").isEqualTo(true);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE generation_history_away RENAME TO generation_history");
+        }
+    }
+
+    private GenerationHistoryWriter writer() {
+        return new GenerationHistoryWriter(jdbcTemplate, new TransactionTemplate(transactionManager), meterRegistry,
+                10, 10, Duration.ofMillis(10), Duration.ofMillis(10));
+    }
+
+    private static GenerationHistory row(String platform) {
+        GenerationHistory row = new GenerationHistory();
+        row.setUserId(3L);
+        row.setPlatform(platform);
+        row.setOutputJson("{}");
+        return row;
+    }
+
+    private GenerationHistoryMigration migration(boolean dropRaw) {
+        return new GenerationHistoryMigration(jdbcTemplate, meterRegistry, true, dropRaw, 1, 3);
+    }
+
+    private long insertLegacy(String modelText) {
+        jdbcTemplate.update("INSERT INTO generation_history (user_id, platform, output_json, created_at) VALUES (?, ?, ?, ?)",
+                2L, "instagram", modelText, Timestamp.from(Instant.now()));
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM generation_history", Long.class);
+    }
+
+    private static GenerateResponse answer() {
+        return new GenerateResponse(
+                List.of("Leg day is the best day. Who's with me?", "No skipping leg day this week!",
+                        "Squats, lunges and a lot of sweat."),
+                List.of("#legday", "#fitness", "#gymlife", "#squats", "#workout"),
+                List.of(new PostIdea("Squat form check", "Film a side view of your squat and break down the form.",
+                                "Side view of a barbell squat in a bright gym"),
+                        new PostIdea("Leg day playlist", "Share the five songs that get you through leg day.",
+                                "Headphones on a squat rack")));
+    }
+}
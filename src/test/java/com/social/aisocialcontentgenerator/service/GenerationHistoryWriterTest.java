@@ -0,0 +1,119 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Queueing, backpressure and shutdown of GenerationHistoryWriter against a JdbcTemplate that records
+ * which thread wrote which rows.
+ */
+class GenerationHistoryWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Queue<String> written = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch writerBusy = new CountDownLatch(1);
+    private final CountDownLatch databaseFree = new CountDownLatch(1);
+    private volatile boolean slowDatabase;
+
+    private GenerationHistoryWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        databaseFree.countDown();
+        if (writer != null) writer.stop();
+    }
+
+    @Test
+    void queuedRowsAreWrittenInBatchesOffTheCallingThread() {
+        recordWrites();
+        writer = writer(100);
+        writer.start();
+
+        for (int i = 0; i < 20; i++) writer.enqueue(row("p" + i));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> written.size() == 20);
+        assertThat(written).allMatch(w -> w.startsWith("history-writer:"));
+        assertThat(meterRegistry.get("generation.history.caller_runs").counter().count()).isZero();
+        assertThat(meterRegistry.get("generation.history.batch.size").summary().count()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    void fullQueueMakesTheCallerWriteItsOwnRow() throws Exception {
+        recordWrites();
+        slowDatabase = true;
+        writer = writer(1);
+        writer.start();
+
+        writer.enqueue(row("taken"));    // the writer blocks on this one
+        assertThat(writerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(row("queued"));   // fills the queue
+        writer.enqueue(row("overflow")); // no room: written here
+
+        assertThat(written).containsExactly(Thread.currentThread().getName() + ":overflow");
+        assertThat(meterRegistry.get("generation.history.caller_runs").counter().count()).isEqualTo(1);
+
+        databaseFree.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> written.size() == 3);
+    }
+
+    @Test
+    void stopFlushesEverythingStillQueued() {
+        recordWrites();
+        slowDatabase = true;
+        writer = writer(100);
+        writer.start();
+        for (int i = 0; i < 10; i++) writer.enqueue(row("p" + i));
+
+        databaseFree.countDown();
+        writer.stop();
+
+        assertThat(written).hasSize(10);
+        assertThat(meterRegistry.get("generation.history.caller_runs").counter().count()).isZero();
+    }
+
+    private void recordWrites() {
+        doAnswer(inv -> {
+            String thread = Thread.currentThread().getName();
+            if (slowDatabase && thread.equals("history-writer")) {
+                writerBusy.countDown();
+                databaseFree.await(5, TimeUnit.SECONDS);
+            }
+            List<GenerationHistory> rows = inv.getArgument(1);
+            rows.forEach(h -> written.add(thread + ":" + h.getPlatform()));
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    private GenerationHistoryWriter writer(int queueCapacity) {
+        return new GenerationHistoryWriter(jdbcTemplate, TransactionOperations.withoutTransaction(), meterRegistry, queueCapacity, 10,
+                Duration.ofMillis(10), Duration.ofMillis(20));
+    }
+
+    private static GenerationHistory row(String platform) {
+        GenerationHistory row = new GenerationHistory();
+        row.setUserId(1L);
+        row.setPlatform(platform);
+        return row;
+    }
+}
@@ -0,0 +1,198 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateItem;
+import com.social.aisocialcontentgenerator.dto.BatchGenerateResponse;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.dto.LlmUsage;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Fires far more concurrent generations than there are "request" threads and checks that all of them
+ * are in flight at the LLM at the same time, i.e. a slow model no longer pins one thread per request.
+ */
+class GenerationServiceAsyncLoadTest {
+
+    private static final int REQUEST_THREADS = 8;     // stands in for the Tomcat worker pool
+    private static final int CONCURRENT_REQUESTS = 200;
+    private static final Duration LLM_LATENCY = Duration.ofMillis(500);
+
+    private final ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+    private final ExecutorService taskExecutor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        requestThreads.shutdownNow();
+        taskExecutor.shutdownNow();
+    }
+
+    @Test
+    void inFlightGenerationsExceedRequestThreadPool() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        LLMService slowLlm = FakeLlm.answering(() -> Mono.delay(LLM_LATENCY)
+                .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(s -> inFlight.decrementAndGet())
+                .thenReturn("{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}"));
+
+        AuthPrincipal principal = new AuthPrincipal(1L, "load@test.dev", Plan.PRO);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GenerationService service = new GenerationService(slowLlm, mock(GenerationHistoryWriter.class),
+                mock(UsageService.class), new GenerationCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry), taskExecutor, 50, 16, true);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<GenerateResponse>> results = new ArrayList<>();
+        List<CompletableFuture<Void>> submissions = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            int n = i;
+            submissions.add(CompletableFuture.runAsync(() -> {
+                CompletableFuture<GenerateResponse> f = service.generateForUserAsync(principal, requestFor(n));
+                synchronized (results) {
+                    results.add(f);
+                }
+            }, requestThreads));
+        }
+        CompletableFuture.allOf(submissions.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(results).hasSize(CONCURRENT_REQUESTS);
+        assertThat(results).allSatisfy(f -> assertThat(f.join().getCaptions()).containsExactly("c"));
+        assertThat(maxInFlight.get()).isGreaterThan(REQUEST_THREADS * 10);
+        // sequential blocking on 8 threads would take 200 / 8 * 500ms = 12.5s
+        assertThat(elapsedMs).isLessThan(5_000);
+    }
+
+    @Test
+    void batchTakesAboutAsLongAsItsSlowestEntry() throws Exception {
+        FakeLlm slowLlm = FakeLlm.byPrompt(prompt -> prompt.contains("boom")
+                ? Mono.error(new RuntimeException("model exploded"))
+                : Mono.delay(LLM_LATENCY).thenReturn("{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}"));
+
+        UsageService usageService = mock(UsageService.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GenerationService service = new GenerationService(slowLlm, mock(GenerationHistoryWriter.class),
+                usageService, new GenerationCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), new GenerationCostTracker(meterRegistry, 7), new GenerationMetrics(meterRegistry), taskExecutor, 50, 16, true);
+
+        List<GenerateRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 15; i++) batch.add(requestFor(i));
+        batch.add(requestFor(3));          // duplicate of entry 3
+        batch.add(requestFor("boom"));     // fails
+
+        long start = System.nanoTime();
+        BatchGenerateResponse response = service.generateBatchForUser(new AuthPrincipal(1L, "agency@test.dev", Plan.PRO), batch)
+                .get(10, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(response.getResults()).extracting(BatchGenerateItem::getIndex)
+                .containsExactlyElementsOf(IntStream.range(0, batch.size()).boxed().toList());
+        assertThat(response.getResults().subList(0, 16)).allSatisfy(item -> {
+            assertThat(item.getError()).isNull();
+            assertThat(item.getResponse().getCaptions()).containsExactly("c");
+        });
+        assertThat(response.getResults().get(16).getError()).contains("model exploded");
+        assertThat(slowLlm.calls()).isEqualTo(16);
+        verify(usageService).reserve(1L, 16);
+        verify(usageService).refund(1L, 1);
+        // 15 sequential calls would take 7.5s
+        assertThat(elapsedMs).isLessThan(2_000);
+    }
+
+    @Test
+    void tokensAreAccountedToTheCallThatSpentThem() throws Exception {
+        LLMService llm = new LLMService() {
+            @Override
+            public String callModel(String prompt, Long userId) {
+                throw new UnsupportedOperationException("blocking path not expected");
+            }
+
+            @Override
+            public Mono<String> callModelAsync(String prompt, Long userId) {
+                throw new UnsupportedOperationException("usage-reporting path expected");
+            }
+
+            @Override
+            public Mono<LlmResult> callModelForResult(String prompt, JsonNode responseSchema, Long userId, Plan plan) {
+                return Mono.delay(Duration.ofMillis(100)).thenReturn(new LlmResult(
+                        "{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}", new LlmUsage(120, 80, 230, 0, 30)));
+            }
+        };
+
+        GenerationHistoryWriter historyWriter = mock(GenerationHistoryWriter.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GenerationCostTracker costTracker = new GenerationCostTracker(meterRegistry, 7);
+        GenerationService service = new GenerationService(llm, historyWriter,
+                mock(UsageService.class), new GenerationCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), costTracker, new GenerationMetrics(meterRegistry), taskExecutor, 50, 16, true);
+        AuthPrincipal principal = new AuthPrincipal(7L, "cost@test.dev", Plan.FREE);
+
+        // two concurrent identical requests share one call, the third is a cache hit
+        CompletableFuture<GenerateResponse> leader = service.generateForUserAsync(principal, requestFor(1));
+        CompletableFuture<GenerateResponse> follower = service.generateForUserAsync(principal, requestFor(1));
+        CompletableFuture.allOf(leader, follower).get(5, TimeUnit.SECONDS);
+        service.generateForUserAsync(principal, requestFor(1)).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<GenerationHistory> rows = ArgumentCaptor.forClass(GenerationHistory.class);
+        verify(historyWriter, times(3)).enqueue(rows.capture());
+        assertThat(rows.getAllValues()).filteredOn(row -> row.getTotalTokens() != null).singleElement().satisfies(row -> {
+            assertThat(row.getPromptTokens()).isEqualTo(120);
+            assertThat(row.getCandidatesTokens()).isEqualTo(80);
+            assertThat(row.getTotalTokens()).isEqualTo(230);
+            assertThat(row.getModelLatencyMs()).isGreaterThanOrEqualTo(100);
+        });
+        assertThat(rows.getAllValues()).filteredOn(row -> row.getModelLatencyMs() == null).hasSize(2);
+
+        Map<String, Object> days = costTracker.totalsForUser(7L);
+        assertThat(days).hasSize(1);
+        assertThat(days.values().iterator().next())
+                .asInstanceOf(InstanceOfAssertFactories.MAP).containsEntry("calls", 1L).containsEntry("totalTokens", 230L);
+        assertThat(meterRegistry.get("llm.tokens").tag("type", "total").tag("plan", "FREE").tag("shape", "single")
+                .summary().totalAmount()).isEqualTo(230);
+        assertThat(meterRegistry.get("generation.stage").tag("stage", "llm").tag("platform", "instagram").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("generation.stage").tag("stage", "parse").tag("path", "structured").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.find("generation.parse.fallbacks").counters()).isEmpty();
+    }
+
+    // distinct keywords per request so caching and single-flight coalescing do not collapse the load
+    private static GenerateRequest requestFor(int n) {
+        return requestFor("kw" + n);
+    }
+
+    private static GenerateRequest requestFor(String keywords) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform("instagram");
+        req.setIndustry("fitness");
+        req.setKeywords(keywords);
+        return req;
+    }
+}
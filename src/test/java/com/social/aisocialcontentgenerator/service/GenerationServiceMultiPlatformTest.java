@@ -0,0 +1,98 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateResponse;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.GenerationHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Multi-platform generations: one LLM call split per platform, charged only for the platforms it covers.
+ */
+class GenerationServiceMultiPlatformTest {
+
+    private static final AuthPrincipal PRINCIPAL = new AuthPrincipal(1L, "multi@test.dev", Plan.FREE);
+    private static final String SECTION = "{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}";
+
+    private final ExecutorService taskExecutor = Executors.newFixedThreadPool(2);
+    private final UsageService usageService = mock(UsageService.class);
+    private final GenerationHistoryWriter historyWriter = mock(GenerationHistoryWriter.class);
+
+    @AfterEach
+    void tearDown() {
+        taskExecutor.shutdownNow();
+    }
+
+    @Test
+    void partialAnswerRefundsTheMissingPlatforms() throws Exception {
+        // model keys in its own spelling; linkedin left out
+        FakeLlm llm = FakeLlm.answering(() -> Mono.just("Here you go:\n```json\n{\"Instagram\": " + SECTION
+                + ", \"twitter\": " + SECTION + "}\n```"));
+        GenerationService service = service(llm);
+
+        MultiPlatformGenerateResponse response = service
+                .generateMultiPlatformForUser(PRINCIPAL, request("IG", "Twitter", "LinkedIn")).get(5, TimeUnit.SECONDS);
+
+        assertThat(response.getResults()).containsOnlyKeys("instagram", "x");
+        assertThat(response.getResults().get("x").getCaptions()).containsExactly("c");
+        assertThat(response.getMissingPlatforms()).containsExactly("linkedin");
+        verify(usageService).reserve(1L, 3);
+        verify(usageService).refund(1L, 1);
+        verify(historyWriter, times(2)).enqueue(any(GenerationHistory.class));
+
+        // each answered platform is cached as its own single-platform generation
+        GenerateRequest single = request("instagram").forPlatform("instagram");
+        assertThat(service.generateForUser(PRINCIPAL, single).getCaptions()).containsExactly("c");
+        assertThat(llm.calls()).isEqualTo(1);
+    }
+
+    @Test
+    void unusableAnswerIsRefundedAndNotServedFromTheCache() throws Exception {
+        FakeLlm llm = FakeLlm.answering(() -> Mono.just("Sorry, I can't help with that."));
+        GenerationService service = service(llm);
+
+        for (int i = 0; i < 2; i++) {
+            MultiPlatformGenerateResponse response = service
+                    .generateMultiPlatformForUser(PRINCIPAL, request("instagram", "x")).get(5, TimeUnit.SECONDS);
+            assertThat(response.getResults()).isEmpty();
+            assertThat(response.getMissingPlatforms()).containsExactly("instagram", "x");
+        }
+
+        assertThat(llm.calls()).isEqualTo(2);
+        verify(usageService, times(2)).refund(1L, 2);
+    }
+
+    private GenerationService service(LLMService llm) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new GenerationService(llm, historyWriter, usageService,
+                new GenerationCache(true, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry),
+                new GenerationCoalescer(meterRegistry), new GenerationCostTracker(meterRegistry, 7),
+                new GenerationMetrics(meterRegistry), taskExecutor, 50, 16, true);
+    }
+
+    private static MultiPlatformGenerateRequest request(String... platforms) {
+        MultiPlatformGenerateRequest req = new MultiPlatformGenerateRequest();
+        req.setPlatforms(List.of(platforms));
+        req.setIndustry("fitness");
+        req.setKeywords("leg day");
+        return req;
+    }
+}
@@ -0,0 +1,81 @@
+package com.social.aisocialcontentgenerator.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BCryptPasswordEncoder encoder = mock(BCryptPasswordEncoder.class);
+    private final CountDownLatch busy = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    // one hashing thread, one queue slot
+    private final PasswordHasher hasher = new PasswordHasher(encoder, meterRegistry, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hasher.shutdown();
+    }
+
+    @Test
+    void fullQueueRejectsWithTooManyRequests() throws Exception {
+        when(encoder.encode(any())).thenAnswer(inv -> {
+            busy.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        when(encoder.matches(any(), any())).thenReturn(true);
+
+        Future<String> running = callers.submit(() -> hasher.hash("first"));
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Boolean> queued = callers.submit(() -> hasher.matches("second", "hash"));
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("executor.queued").tag("name", "password-hashing").gauge().value() == 1);
+
+        assertThatThrownBy(() -> hasher.hash("third")).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        assertThatThrownBy(() -> hasher.matches("third", "hash")).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+        // background upgrades are skipped, not queued
+        assertThat(hasher.rehashInBackground("third")).failsWithin(Duration.ZERO)
+                .withThrowableOfType(Exception.class).withCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void needsRehashOnlyForLowerCostFactors() {
+        PasswordHasher strength12 = new PasswordHasher(new BCryptPasswordEncoder(12), meterRegistry, 1, 1);
+        try {
+            assertThat(strength12.needsRehash(new BCryptPasswordEncoder(10).encode("pw"))).isTrue();
+            assertThat(strength12.needsRehash(strength12.hash("pw"))).isFalse();
+        } finally {
+            strength12.shutdown();
+        }
+    }
+}
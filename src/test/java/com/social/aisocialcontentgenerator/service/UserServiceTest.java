@@ -0,0 +1,107 @@
+package com.social.aisocialcontentgenerator.service;
+
+import com.social.aisocialcontentgenerator.entity.User;
+import com.social.aisocialcontentgenerator.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Login upgrades hashes made with a lower cost factor (10) to the configured one (12), guarded by the old hash.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserServiceTest {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Autowired
+    private UserRepository repository;
+
+    private UserRepository userRepository;
+    private PasswordHasher passwordHasher;
+    private UserService userService;
+    // stands in for the task executor; holds the UPDATE until the test runs it
+    private final List<Runnable> deferred = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class, delegatesTo(repository));
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(12), new SimpleMeterRegistry(), 1, 4);
+        userService = new UserService(userRepository, passwordHasher, deferred::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.shutdown();
+        repository.deleteAll();
+    }
+
+    @Test
+    void loginUpgradesAnOlderCostFactorGuardedByTheOldHash() {
+        String oldHash = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        User user = save("upgrade@test.dev", oldHash);
+
+        userService.validateUser("upgrade@test.dev", PASSWORD);
+        runUpdate();
+
+        verify(userRepository).updatePasswordHash(eq(user.getId()), eq(oldHash), argThat(h -> h.startsWith("$2a$12$")));
+        String stored = repository.findById(user.getId()).orElseThrow().getPasswordHash();
+        assertThat(stored).startsWith("$2a$12$");
+        assertThat(new BCryptPasswordEncoder(12).matches(PASSWORD, stored)).isTrue();
+    }
+
+    @Test
+    void passwordChangedDuringTheUpgradeIsNotOverwritten() {
+        User user = save("race@test.dev", new BCryptPasswordEncoder(10).encode(PASSWORD));
+
+        userService.validateUser("race@test.dev", PASSWORD);
+        String changed = new BCryptPasswordEncoder(12).encode("a new password");
+        User fresh = repository.findById(user.getId()).orElseThrow();
+        fresh.setPasswordHash(changed);
+        repository.save(fresh);
+        runUpdate();
+
+        assertThat(repository.findById(user.getId()).orElseThrow().getPasswordHash()).isEqualTo(changed);
+    }
+
+    @Test
+    void currentCostFactorIsNotRehashed() {
+        save("current@test.dev", new BCryptPasswordEncoder(12).encode(PASSWORD));
+
+        userService.validateUser("current@test.dev", PASSWORD);
+
+        assertThat(deferred).isEmpty();
+    }
+
+    // wait for the background hash, then run the UPDATE it handed to the task executor
+    private void runUpdate() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> deferred.size() == 1);
+        deferred.remove(0).run();
+    }
+
+    private User save(String email, String passwordHash) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash(passwordHash);
+        return repository.save(user);
+    }
+}
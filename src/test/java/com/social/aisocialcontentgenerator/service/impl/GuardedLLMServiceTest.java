@@ -0,0 +1,81 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.social.aisocialcontentgenerator.service.FakeLlm;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import com.social.aisocialcontentgenerator.service.LlmCircuitBreaker;
+import com.social.aisocialcontentgenerator.service.LlmConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class GuardedLLMServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void breakerOpensOnFailuresFailsFastAndClosesAfterProbes() {
+        AtomicBoolean healthy = new AtomicBoolean(false);
+        AtomicInteger providerCalls = new AtomicInteger();
+        LLMService provider = FakeLlm.answering(() -> {
+            providerCalls.incrementAndGet();
+            return healthy.get() ? Mono.just("ok") : Mono.error(new IllegalStateException("503 from provider"));
+        });
+        LlmCircuitBreaker breaker = new LlmCircuitBreaker(10, 5, 0.5, Duration.ofMillis(50), 2, meterRegistry);
+        GuardedLLMService guarded = new GuardedLLMService(provider, limiter(20), breaker);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> guarded.callModelAsync("p", 1L).block()).hasMessageContaining("503 from provider");
+        }
+        assertThat(breaker.state()).isEqualTo(LlmCircuitBreaker.State.OPEN);
+
+        // open: rejected without reaching the provider
+        assertThatThrownBy(() -> guarded.callModelAsync("p", 1L).block())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(providerCalls.get()).isEqualTo(5);
+
+        // after open-duration the next call goes through as a probe
+        healthy.set(true);
+        await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(10))
+                .until(() -> guarded.callModelAsync("p", 1L).onErrorReturn("rejected").block(), "ok"::equals);
+        assertThat(breaker.state()).isEqualTo(LlmCircuitBreaker.State.HALF_OPEN);
+        assertThat(guarded.callModelAsync("p", 1L).block()).isEqualTo("ok");
+        assertThat(breaker.state()).isEqualTo(LlmCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void limiterRejectsBeyondLimitAndBacksOffOnOverload() {
+        Sinks.One<String> answer = Sinks.one();
+        LLMService provider = FakeLlm.answering(answer::asMono);
+        LlmConcurrencyLimiter limiter = limiter(4);
+        GuardedLLMService guarded = new GuardedLLMService(provider,
+                limiter, new LlmCircuitBreaker(50, 20, 0.5, Duration.ofSeconds(30), 3, meterRegistry));
+
+        for (int i = 0; i < 4; i++) guarded.callModelAsync("p", 1L).subscribe(t -> { }, e -> { });
+        assertThat(limiter.inFlight()).isEqualTo(4);
+        assertThatThrownBy(() -> guarded.callModelAsync("p", 1L).block())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+        // all four time out at the provider: the limit shrinks
+        answer.tryEmitError(new TimeoutException());
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.limit()).isLessThan(4);
+    }
+
+    private LlmConcurrencyLimiter limiter(int initialLimit) {
+        return new LlmConcurrencyLimiter(initialLimit, 1, 100, 0.9, Duration.ofSeconds(10), meterRegistry);
+    }
+}
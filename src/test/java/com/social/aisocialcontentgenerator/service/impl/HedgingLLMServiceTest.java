@@ -0,0 +1,73 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.social.aisocialcontentgenerator.service.FakeLlm;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingLLMServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void slowCallIsOvertakenByHedge() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        // first call hangs in the tail, the hedge answers quickly
+        LLMService tail = FakeLlm.answering(() -> calls.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow").doOnCancel(cancelled::incrementAndGet)
+                : Mono.delay(Duration.ofMillis(20)).thenReturn("fast"));
+        HedgingLLMService hedging = new HedgingLLMService(tail, 0.95, Duration.ofMillis(100), 1.0, 100, meterRegistry);
+
+        long start = System.nanoTime();
+        assertThat(hedging.callModelAsync("p", 1L).block()).isEqualTo("fast");
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(cancelled.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("llm.hedge.wins").tag("winner", "hedge").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledSlowCallsKeepTheHedgeDelayUp() {
+        // per prompt: the original call hangs, the hedge answers in 20ms
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        LLMService tail = FakeLlm.byPrompt(prompt -> calls.computeIfAbsent(prompt, p -> new AtomicInteger()).incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")
+                : Mono.delay(Duration.ofMillis(20)).thenReturn("fast"));
+        HedgingLLMService hedging = new HedgingLLMService(tail, 0.95, Duration.ofMillis(40), 1.0, 64, meterRegistry);
+
+        // 64 samples trigger a recompute of the delay
+        Flux.range(0, 64).flatMap(i -> hedging.callModelAsync("p" + i, 1L), 16).blockLast(Duration.ofSeconds(10));
+
+        // each original call ran for at least delay + hedge latency before it was cancelled; sampling the
+        // hedges instead (20ms) would have pulled the delay down to min-delay
+        assertThat(meterRegistry.get("llm.hedge.delay").gauge().value()).isGreaterThanOrEqualTo(60);
+        assertThat(meterRegistry.get("llm.hedge.wins").tag("winner", "hedge").counter().count()).isEqualTo(64);
+    }
+
+    @Test
+    void hedgesStayWithinBudgetWhenEverythingIsSlow() {
+        AtomicInteger calls = new AtomicInteger();
+        LLMService slow = FakeLlm.answering(() -> {
+            calls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(30)).thenReturn("ok");
+        });
+        HedgingLLMService hedging = new HedgingLLMService(slow, 0.95, Duration.ofMillis(1), 0.05, 100, meterRegistry);
+
+        Flux.range(0, 200).flatMap(i -> hedging.callModelAsync("p", 1L), 50).blockLast();
+
+        // 5% of 200 calls
+        assertThat(calls.get() - 200).isBetween(1, 10);
+        assertThat(meterRegistry.get("llm.hedge.calls").tag("result", "no_budget").counter().count()).isGreaterThan(0);
+    }
+}
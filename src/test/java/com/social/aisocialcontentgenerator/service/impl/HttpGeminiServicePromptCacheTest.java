@@ -0,0 +1,164 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.LlmResult;
+import com.social.aisocialcontentgenerator.service.PromptPrefixCache;
+import com.social.aisocialcontentgenerator.util.PromptFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * HttpGeminiService against a local stand-in for Gemini's generateContent and cachedContents endpoints.
+ */
+class HttpGeminiServicePromptCacheTest {
+
+    private static final ObjectMapper M = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<JsonNode> generateBodies = new CopyOnWriteArrayList<>();
+    private volatile boolean failCreate;
+    private HttpServer server;
+    private String apiUrl;
+
+    @BeforeEach
+    void startFakeGemini() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        apiUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta/models/gemini-test:generateContent";
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void registersPrefixOnceThenSendsOnlyTheSuffix() {
+        PromptPrefixCache cache = cache(Duration.ofMinutes(10));
+        HttpGeminiService gemini = new HttpGeminiService(WebClient.create(), apiUrl, "k", cache);
+        String prompt = PromptFactory.buildPrompt(request());
+
+        // first call goes out in full and starts the registration
+        gemini.callModelForResult(prompt, 1L, null).block();
+        assertThat(generateBodies.get(0).has("cachedContent")).isFalse();
+        assertThat(text(generateBodies.get(0))).isEqualTo(prompt);
+        await().until(() -> requests.contains("POST /v1beta/cachedContents"));
+
+        LlmResult cached = await().until(() -> gemini.callModelForResult(prompt, 1L, null).block(),
+                result -> result.getUsage().getCachedContentTokens() > 0);
+        JsonNode body = generateBodies.get(generateBodies.size() - 1);
+        assertThat(body.path("cachedContent").asText()).isEqualTo("cachedContents/c1");
+        assertThat(text(body)).isEqualTo(prompt.substring(PromptFactory.PROMPT_PREFIX.length()));
+        assertThat(cached.getText()).isEqualTo("{}");
+        assertThat(requests).containsOnlyOnce("POST /v1beta/cachedContents");
+
+        DistributionSummary saved = meterRegistry.get("llm.prompt.cached_tokens").summary();
+        assertThat(saved.count()).isEqualTo(generateBodies.size());
+        assertThat(saved.max()).isEqualTo(PromptFactory.PROMPT_PREFIX.length() / 4);
+    }
+
+    @Test
+    void refreshExtendsHandlesBeforeTheyExpire() {
+        // refresh-before longer than the TTL: every check finds the handle expiring
+        PromptPrefixCache cache = cache(Duration.ofHours(2));
+        HttpGeminiService gemini = new HttpGeminiService(WebClient.create(), apiUrl, "k", cache);
+        String prompt = PromptFactory.buildStructuredPrompt(request());
+
+        gemini.callModelForResult(prompt, 1L, null).block();
+        await().until(() -> cache.lookup(gemini, prompt) != null);
+        cache.refresh();
+
+        await().until(() -> requests.contains("PATCH /v1beta/cachedContents/c1"));
+        assertThat(cache.lookup(gemini, prompt).name()).isEqualTo("cachedContents/c1");
+    }
+
+    @Test
+    void failedRegistrationKeepsPromptsInline() {
+        failCreate = true;
+        PromptPrefixCache cache = cache(Duration.ofMinutes(10));
+        HttpGeminiService gemini = new HttpGeminiService(WebClient.create(), apiUrl, "k", cache);
+        String prompt = PromptFactory.buildPrompt(request());
+
+        gemini.callModelForResult(prompt, 1L, null).block();
+        await().until(() -> requests.contains("POST /v1beta/cachedContents"));
+        for (int i = 0; i < 3; i++) {
+            gemini.callModelForResult(prompt, 1L, null).block();
+        }
+
+        assertThat(generateBodies).allSatisfy(body -> {
+            assertThat(body.has("cachedContent")).isFalse();
+            assertThat(text(body)).isEqualTo(prompt);
+        });
+        // retried only after retry-after
+        assertThat(requests).containsOnlyOnce("POST /v1beta/cachedContents");
+    }
+
+    private PromptPrefixCache cache(Duration refreshBefore) {
+        return new PromptPrefixCache(true, Duration.ofHours(1), refreshBefore, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+        requests.add(request);
+        JsonNode body = M.readTree(exchange.getRequestBody());
+        String expireTime = Instant.now().plus(Duration.ofHours(1)).toString();
+        String response;
+        int status = 200;
+        if (request.endsWith(":generateContent")) {
+            generateBodies.add(body);
+            // the stand-in bills ~4 characters per token
+            int cachedTokens = body.has("cachedContent") ? PromptFactory.PROMPT_PREFIX.length() / 4 : 0;
+            response = "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"{}\"}]}}], "
+                    + "\"usageMetadata\": {\"promptTokenCount\": 200, \"cachedContentTokenCount\": " + cachedTokens + "}}";
+        } else if (request.equals("POST /v1beta/cachedContents") && failCreate) {
+            status = 400;
+            response = "{\"error\": {\"message\": \"Cached content is too small\"}}";
+        } else if (request.equals("POST /v1beta/cachedContents") && body.path("model").asText().equals("models/gemini-test")) {
+            response = "{\"name\": \"cachedContents/c1\", \"expireTime\": \"" + expireTime + "\"}";
+        } else if (request.equals("PATCH /v1beta/cachedContents/c1") && body.path("ttl").asText().equals("3600s")) {
+            response = "{\"name\": \"cachedContents/c1\", \"expireTime\": \"" + expireTime + "\"}";
+        } else {
+            status = 404;
+            response = "{}";
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String text(JsonNode generateBody) {
+        return generateBody.at("/contents/0/parts/0/text").asText();
+    }
+
+    private static GenerateRequest request() {
+        GenerateRequest request = new GenerateRequest();
+        request.setPlatform("instagram");
+        request.setIndustry("fitness");
+        request.setTone("energetic");
+        request.setKeywords("leg day");
+        return request;
+    }
+}
@@ -0,0 +1,99 @@
+package com.social.aisocialcontentgenerator.service.impl;
+
+import com.social.aisocialcontentgenerator.config.LlmRoutingProperties;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.service.FakeLlm;
+import com.social.aisocialcontentgenerator.service.LLMService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingLLMServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void routesToFastestHealthyBackendAndAvoidsFailingOne() {
+        Map<String, LLMService> services = new LinkedHashMap<>();
+        services.put("slow", FakeLlm.answering("slow", Duration.ofMillis(60)));
+        services.put("fast", FakeLlm.answering("fast", Duration.ofMillis(5)));
+        services.put("broken", (prompt, userId) -> {
+            throw new IllegalStateException("503");
+        });
+        RoutingLLMService router = new RoutingLLMService(services, new LlmRoutingProperties(), meterRegistry);
+
+        // every backend gets tried while it has no latency yet, then the fast one wins
+        for (int i = 0; i < 20; i++) {
+            router.callModelAsync("p", 1L).onErrorResume(ex -> Mono.empty()).block();
+        }
+        assertThat(router.callModelAsync("p", 1L).block()).isEqualTo("fast");
+        assertThat(meterRegistry.get("llm.backend.calls").tag("backend", "broken").tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void untriedBackendGetsOnlyProbeCallsUntilItAnswers() {
+        Map<String, LLMService> services = new LinkedHashMap<>();
+        services.put("known", FakeLlm.answering("known", Duration.ofMillis(5)));
+        services.put("cold", FakeLlm.answering("cold", Duration.ofMillis(300)));
+        RoutingLLMService router = new RoutingLLMService(services, new LlmRoutingProperties(), meterRegistry);
+        router.callModelAsync("p", 1L).block(); // probes "known", which then has a latency
+
+        Flux.range(0, 20).flatMap(i -> router.callModelAsync("p", 1L), 20).blockLast(Duration.ofSeconds(5));
+
+        // default probe-calls: 2
+        assertThat(meterRegistry.get("llm.routing.decisions").tag("backend", "cold").tag("plan", "none").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("llm.routing.decisions").tag("backend", "known").tag("plan", "none").counter().count())
+                .isEqualTo(19);
+    }
+
+    @Test
+    void cancelledCallRaisesTheLatencyOfASlowBackend() {
+        LLMService backend = FakeLlm.byPrompt(prompt -> prompt.equals("hang")
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("late")
+                : Mono.delay(Duration.ofMillis(10)).thenReturn("ok"));
+        RoutingLLMService router = new RoutingLLMService(Map.of("only", backend), new LlmRoutingProperties(), meterRegistry);
+        router.callModelAsync("p", 1L).block();
+        double before = meterRegistry.get("llm.backend.latency.ewma").tag("backend", "only").gauge().value();
+
+        // e.g. a hedge answered first
+        router.callModelAsync("hang", 1L).timeout(Duration.ofMillis(300)).onErrorResume(ex -> Mono.empty()).block();
+
+        // 0.2 * 300ms + 0.8 * ~10ms
+        assertThat(meterRegistry.get("llm.backend.latency.ewma").tag("backend", "only").gauge().value())
+                .isGreaterThan(before + 40);
+        assertThat(meterRegistry.get("llm.backend.calls").tag("backend", "only").tag("outcome", "cancelled").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("llm.backend.error_rate.ewma").tag("backend", "only").gauge().value()).isZero();
+    }
+
+    @Test
+    void orderedPolicyKeepsPlanOnPreferredBackend() {
+        Map<String, LLMService> services = new LinkedHashMap<>();
+        services.put("flash", FakeLlm.answering("flash", Duration.ofMillis(1)));
+        services.put("pro", FakeLlm.answering("pro", Duration.ofMillis(30)));
+        LlmRoutingProperties properties = new LlmRoutingProperties();
+        LlmRoutingProperties.Policy pro = new LlmRoutingProperties.Policy();
+        pro.setBackends(List.of("pro", "flash"));
+        pro.setStrategy(LlmRoutingProperties.Strategy.ORDERED);
+        properties.getPlans().put(Plan.PRO, pro);
+        RoutingLLMService router = new RoutingLLMService(services, properties, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(router.callModelAsync("p", 1L, Plan.PRO).block()).isEqualTo("pro");
+        }
+        router.callModelAsync("p", 1L, Plan.FREE).block();
+        router.callModelAsync("p", 1L, Plan.FREE).block();
+        assertThat(router.callModelAsync("p", 1L, Plan.FREE).block()).isEqualTo("flash");
+        assertThat(router.modelTier(Plan.PRO)).isNotEqualTo(router.modelTier(Plan.FREE));
+    }
+}
@@ -0,0 +1,78 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiResponseExtractorTest {
+
+    private static final String RESPONSE = """
+            {
+              "candidates": [
+                {
+                  "content": {
+                    "parts": [
+                      {"text": "{\\"captions\\": [\\"Gains 💪 \\\\\\"today\\\\\\"\\"], \\"hashtags\\": [\\"#gym\\"]}"},
+                      {"text": "second part is ignored"}
+                    ],
+                    "role": "model"
+                  },
+                  "finishReason": "STOP",
+                  "safetyRatings": [
+                    {"category": "HARM_CATEGORY_HARASSMENT", "probability": "NEGLIGIBLE"},
+                    {"category": "HARM_CATEGORY_HATE_SPEECH", "probability": "NEGLIGIBLE", "text": "not this"}
+                  ],
+                  "index": 0
+                },
+                {"content": {"parts": [{"text": "second candidate"}]}, "finishReason": "STOP"}
+              ],
+              "usageMetadata": {
+                "promptTokenCount": 312,
+                "candidatesTokenCount": 187,
+                "totalTokenCount": 620,
+                "thoughtsTokenCount": 121,
+                "promptTokensDetails": [{"modality": "TEXT", "tokenCount": 312}]
+              },
+              "modelVersion": "gemini-2.5-flash"
+            }
+            """;
+
+    @Test
+    void extractsSameTextAsTreeWalkForAnyBufferSplit() throws Exception {
+        String expected = new ObjectMapper().readTree(RESPONSE)
+                .path("candidates").path(0).path("content").path("parts").path(0).path("text").asText();
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        // chunk sizes of 1 and 3 split multi-byte characters and escapes across buffers
+        for (int chunk : new int[]{1, 3, 17, 512, bytes.length}) {
+            GeminiResponseExtractor extractor = new GeminiResponseExtractor();
+            for (int i = 0; i < bytes.length; i += chunk) {
+                extractor.feed(ByteBuffer.wrap(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunk))));
+            }
+            extractor.finish();
+
+            assertThat(extractor.text()).as("chunk %d", chunk).isEqualTo(expected);
+            assertThat(extractor.finishReason()).isEqualTo("STOP");
+            assertThat(extractor.usage().getPromptTokens()).isEqualTo(312);
+            assertThat(extractor.usage().getCandidatesTokens()).isEqualTo(187);
+            assertThat(extractor.usage().getTotalTokens()).isEqualTo(620);
+            assertThat(extractor.usage().getThoughtsTokens()).isEqualTo(121);
+        }
+    }
+
+    @Test
+    void blockedPromptHasNoTextButReportsReason() throws Exception {
+        GeminiResponseExtractor extractor = GeminiResponseExtractor.of("""
+                {"promptFeedback": {"blockReason": "SAFETY"}, "usageMetadata": {"promptTokenCount": 9, "totalTokenCount": 9}}
+                """.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(extractor.text()).isNull();
+        assertThat(extractor.blockReason()).isEqualTo("SAFETY");
+        assertThat(extractor.usage().getTotalTokens()).isEqualTo(9);
+    }
+}
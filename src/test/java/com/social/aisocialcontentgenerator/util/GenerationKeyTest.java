@@ -0,0 +1,87 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.social.aisocialcontentgenerator.dto.GenerateRequest;
+import com.social.aisocialcontentgenerator.dto.MultiPlatformGenerateRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GenerationKeyTest {
+
+    @Test
+    void ignoresCaseAndWhitespace() {
+        assertThat(GenerationKey.of(request("  Instagram ", "Home   Fitness", "FRIENDLY", " Protein  Shake ")))
+                .isEqualTo(GenerationKey.of(request("instagram", "home fitness", "friendly", "protein shake")))
+                .isEqualTo("instagram|home fitness|friendly|protein shake");
+    }
+
+    @Test
+    void keywordsAreAnUnorderedSet() {
+        String key = GenerationKey.of(request("instagram", "fitness", "friendly", "protein, gym"));
+
+        assertThat(GenerationKey.of(request("instagram", "fitness", "friendly", "gym;protein"))).isEqualTo(key);
+        assertThat(GenerationKey.of(request("instagram", "fitness", "friendly", "Gym\nprotein, ,gym"))).isEqualTo(key);
+        assertThat(key).endsWith("|gym,protein");
+        // only , ; and newline separate keywords
+        assertThat(GenerationKey.of(request("instagram", "fitness", "friendly", "protein gym"))).isNotEqualTo(key);
+    }
+
+    @Test
+    void resolvesPlatformAliases() {
+        assertThat(GenerationKey.platform("IG")).isEqualTo("instagram");
+        assertThat(GenerationKey.platform("Twitter")).isEqualTo("x");
+        assertThat(GenerationKey.platform("X.com")).isEqualTo("x");
+        assertThat(GenerationKey.platform("Linked  In")).isEqualTo("linkedin");
+        assertThat(GenerationKey.platform("Tik Tok")).isEqualTo("tiktok");
+        assertThat(GenerationKey.platform("mastodon")).isEqualTo("mastodon");
+        assertThat(GenerationKey.platform(null)).isEmpty();
+        assertThat(GenerationKey.of(request("IG", "fitness", null, "gym")))
+                .isEqualTo(GenerationKey.of(request("instagram", "fitness", null, "gym")));
+    }
+
+    @Test
+    void missingToneMeansTheDefaultTone() {
+        String friendly = GenerationKey.of(request("instagram", "fitness", "friendly", "gym"));
+
+        assertThat(GenerationKey.of(request("instagram", "fitness", null, "gym"))).isEqualTo(friendly);
+        assertThat(GenerationKey.of(request("instagram", "fitness", "  ", "gym"))).isEqualTo(friendly);
+        assertThat(GenerationKey.of(request("instagram", "fitness", "witty", "gym"))).isNotEqualTo(friendly);
+    }
+
+    @Test
+    void requestsSharingAKeyBuildTheSamePrompt() {
+        GenerateRequest friendly = request("instagram", "fitness", "friendly", "gym");
+        for (String tone : new String[]{null, "", "  "}) {
+            GenerateRequest blank = request("instagram", "fitness", tone, "gym");
+            assertThat(GenerationKey.of(blank)).isEqualTo(GenerationKey.of(friendly));
+            assertThat(PromptFactory.buildPrompt(blank)).isEqualTo(PromptFactory.buildPrompt(friendly));
+            assertThat(PromptFactory.buildStructuredPrompt(blank)).isEqualTo(PromptFactory.buildStructuredPrompt(friendly));
+        }
+    }
+
+    @Test
+    void multiPlatformKeyIsSortedDedupedAndNeverASingleKey() {
+        MultiPlatformGenerateRequest multi = new MultiPlatformGenerateRequest();
+        multi.setPlatforms(List.of("Twitter", "IG", "instagram", " ", "LinkedIn"));
+        multi.setIndustry("Fitness");
+        multi.setKeywords("gym");
+
+        assertThat(GenerationKey.platforms(multi.getPlatforms())).containsExactly("x", "instagram", "linkedin");
+        assertThat(GenerationKey.of(multi)).isEqualTo("multi:instagram+linkedin+x|fitness|friendly|gym");
+
+        // the cached multi answer is {"instagram": {...}}, not a single answer
+        multi.setPlatforms(List.of("instagram"));
+        assertThat(GenerationKey.of(multi)).isNotEqualTo(GenerationKey.of(request("instagram", "fitness", null, "gym")));
+    }
+
+    private static GenerateRequest request(String platform, String industry, String tone, String keywords) {
+        GenerateRequest req = new GenerateRequest();
+        req.setPlatform(platform);
+        req.setIndustry(industry);
+        req.setTone(tone);
+        req.setKeywords(keywords);
+        return req;
+    }
+}
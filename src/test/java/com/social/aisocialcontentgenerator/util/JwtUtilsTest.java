@@ -0,0 +1,68 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.social.aisocialcontentgenerator.dto.AuthPrincipal;
+import com.social.aisocialcontentgenerator.dto.enums.Plan;
+import com.social.aisocialcontentgenerator.entity.User;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "test_secret_test_secret_test_secret_test_secret";
+
+    @Test
+    void tokenCarriesUserIdAndPlan() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+
+        AuthPrincipal principal = jwtUtils.toPrincipal(jwtUtils.parseToken(jwtUtils.generateToken(user())));
+
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getEmail()).isEqualTo("jwt@test.dev");
+        assertThat(principal.getPlan()).isEqualTo(Plan.PRO);
+    }
+
+    @Test
+    void legacyTokenHasNoUserIdOrPlan() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+
+        AuthPrincipal principal = jwtUtils.toPrincipal(jwtUtils.parseToken(jwtUtils.generateToken("jwt@test.dev")));
+
+        assertThat(principal.getUserId()).isNull();
+        assertThat(principal.getPlan()).isNull();
+        assertThat(principal.getName()).isEqualTo("jwt@test.dev");
+    }
+
+    @Test
+    void rejectsTamperedForeignAndExpiredTokens() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        String token = jwtUtils.generateToken(user());
+        String foreign = jwtUtils("other_secret_other_secret_other_secret_other", 60_000).generateToken(user());
+        String expired = jwtUtils(SECRET, -60_000).generateToken(user());
+
+        assertThat(jwtUtils.parseToken(token.substring(0, token.length() - 2) + "xx")).isNull();
+        assertThat(jwtUtils.parseToken(foreign)).isNull();
+        assertThat(jwtUtils.parseToken(expired)).isNull();
+        assertThat(jwtUtils.parseToken("not a token")).isNull();
+        Claims claims = jwtUtils.parseToken(token);
+        assertThat(claims).isNotNull();
+    }
+
+    static JwtUtils jwtUtils(String secret, long expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("jwt@test.dev");
+        user.setPlan(Plan.PRO);
+        return user;
+    }
+}
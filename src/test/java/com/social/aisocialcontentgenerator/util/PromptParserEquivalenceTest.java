@@ -0,0 +1,106 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rewritten PromptParser must produce exactly what the original one did. Runs both over hand-picked
+ * edge cases and a few thousand model outputs stitched together from typical fragments, comparing the
+ * serialized responses.
+ */
+class PromptParserEquivalenceTest {
+
+    private static final ObjectMapper M = new ObjectMapper();
+
+    private static final List<String> EDGE_CASES = List.of(
+            "",
+            "   \n\t ",
+            "42",
+            "42 is the answer",
+            "true story about #fitness",
+            "null and void",
+            "nice post #a",
+            "[1, 2] and then some #text",
+            "\"just a string\"",
+            "{\"captions\":[\"a\",\"b\"],\"hashtags\":[\"#x\"],\"ideas\":[{\"title\":\"t\",\"description\":\"d\",\"imageIdea\":\"i\"}]}",
+            "{\"captions\":\"one\\ntwo\\n\\n three \",\"hashtags\":\"#a, b c,\\n#d\",\"ideas\":\"first\\nline\\n\\nsecond\\r\\n\\r\\nthird\"}",
+            "{\"posts\":[\"p1\",\"p2\"],\"ideas\":[{\"title\":null}]}",
+            "Sure! Here is your content:\n```json\n{\"captions\":[\"c\"],\"hashtags\":[\"#h\"],\"ideas\":[]}\n```\nEnjoy!",
+            "```json\n{\"captions\":[\"c\"], \"hashtags\": [\"#h\"]\n```",
+            "{ unbalanced ```json {\"captions\":[\"fenced\"]} ```",
+            "{\"captions\":[\"has } brace\"],\"hashtags\":[]}",
+            "{not json at all}\nCaption one\n#tag1 #tag2",
+            "{\"captions\": [\"truncated\", ",
+            "Here are captions:\n- First caption #fit\n* Second caption\n#gym, #health. #gym;\nIdea: post a reel\nIDEA two\nidea three\nidea four",
+            "line\r\nwith\r\ncrlf #tag:\r\n#a #b\r\n",
+            "tabs\tand\u000Bvertical #tab\ttags\f#form",
+            "\u0001#ctrl line\n#x\u0001 #y",
+            "İdea in Turkish\nıdea dotless\nSURE thing\nHERE\nSureness",
+            "#tag,  more #tag2\u0085 and #tag3 ",
+            "# lone hash\n#\n#,\n##double",
+            "a#b c #d#e",
+            "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11 #late\n#after:break\nnote: ideas still counted",
+            "Caption with a very long line that goes well past forty characters: yes\nshort: one\nthird: two\nfourth: three",
+            "﻿{\"captions\":[\"bom\"]}",
+            "﻿42",
+            "]} closing first {\"captions\":[\"x\"]}",
+            "-\n*\n- \n#"
+    );
+
+    private static final String[] FRAGMENTS = {
+            "Sure, here you go:", "Here are 3 captions", "```json", "```", "{", "}", "[", "]",
+            "{\"captions\":[\"Sweat now, shine later\",\"Leg day again\"],\"hashtags\":[\"#fitness\",\"#gym\"],"
+                    + "\"ideas\":[{\"title\":\"Before/after\",\"description\":\"Show progress\",\"imageIdea\":\"Split photo\"}]}",
+            "{\"captions\":\"one\\ntwo\",\"hashtags\":\"#a, b\",\"ideas\":\"x\\n\\ny\"}",
+            "{\"captions\":[", "\"dangling\"", "],\"hashtags\":[\"#h\"]}",
+            "- Morning routine that works #morning", "* Coffee first, then the world",
+            "#fitness #gym #health #fitness", "#motivation, #goals.", "Idea: film a 15s reel",
+            "IDEA - carousel of tips", "Tip: stretch", "Just a plain caption line", "Another one with emoji 💪",
+            "   ", "", "true", "null", "42", "\"quoted\"", "\t#tabbed\ttag", "a#b", "#", "#x ", "İdea", "Here:",
+            "multi: colon: line that is definitely longer than forty characters in total"
+    };
+
+    @Test
+    void edgeCasesMatchTheOriginalParser() throws Exception {
+        for (String text : EDGE_CASES) assertSameOutput(text);
+        assertSameOutput(null);
+    }
+
+    @Test
+    void generatedCorpusMatchesTheOriginalParser() throws Exception {
+        Random random = new Random(42);
+        String[] separators = {"\n", "\r\n", " ", "\n\n", "\t", ""};
+        for (int i = 0; i < 5_000; i++) {
+            int parts = 1 + random.nextInt(12);
+            StringBuilder sb = new StringBuilder();
+            for (int p = 0; p < parts; p++) {
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                sb.append(separators[random.nextInt(separators.length)]);
+            }
+            assertSameOutput(sb.toString());
+        }
+    }
+
+    @Test
+    void cornerCasesAreCoveredByTheCorpus() {
+        // guards against the corpus silently only exercising one branch
+        List<String> paths = new ArrayList<>();
+        for (String text : EDGE_CASES) {
+            var r = PromptParser.parse(text);
+            paths.add(r.getCaptions().isEmpty() ? "empty" : r.getCaptions().get(0).startsWith("Try this caption") ? "placeholder" : "parsed");
+        }
+        assertThat(paths).contains("empty", "placeholder", "parsed");
+    }
+
+    private static void assertSameOutput(String text) throws Exception {
+        String expected = M.writeValueAsString(LegacyPromptParser.parse(text));
+        String actual = M.writeValueAsString(PromptParser.parse(text));
+        assertThat(actual).as("parse(%s)", text).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,56 @@
+package com.social.aisocialcontentgenerator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptParserMultiPlatformTest {
+
+    private static final List<String> PLATFORMS = List.of("instagram", "x", "linkedin");
+
+    @Test
+    void splitsAnswerIntoEachPlatformsJson() {
+        Map<String, String> sections = PromptParser.splitByPlatform("""
+                {"instagram": {"captions": ["a"]}, "x": {"captions": ["b"]}, "linkedin": {"captions": ["c"]}}""", PLATFORMS);
+
+        assertThat(sections).containsExactly(
+                Map.entry("instagram", "{\"captions\":[\"a\"]}"),
+                Map.entry("x", "{\"captions\":[\"b\"]}"),
+                Map.entry("linkedin", "{\"captions\":[\"c\"]}"));
+        assertThat(PromptParser.parse(sections.get("x")).getCaptions()).containsExactly("b");
+    }
+
+    @Test
+    void matchesModelKeysOnTheirCanonicalPlatform() {
+        Map<String, String> sections = PromptParser.splitByPlatform("""
+                Sure! Here are your posts:
+                ```json
+                {"Instagram": {"captions": ["a"]}, "Twitter": {"captions": ["b"]}, "Linked In": {"captions": ["c"]}}
+                ```""", PLATFORMS);
+
+        assertThat(sections.values()).containsExactly("{\"captions\":[\"a\"]}", "{\"captions\":[\"b\"]}", "{\"captions\":[\"c\"]}");
+    }
+
+    @Test
+    void firstUsableSectionWinsAndOthersAreIgnored() {
+        Map<String, String> sections = PromptParser.splitByPlatform("""
+                {"x": "not an object", "twitter": {"captions": ["first"]}, "x.com": {"captions": ["second"]},
+                 "tiktok": {"captions": ["not asked for"]}}""", PLATFORMS);
+
+        assertThat(sections).containsEntry("x", "{\"captions\":[\"first\"]}")
+                .containsEntry("instagram", null)
+                .containsEntry("linkedin", null)
+                .doesNotContainKey("tiktok");
+    }
+
+    @Test
+    void unusableAnswerLeavesEveryPlatformMissing() {
+        for (String answer : new String[]{null, "", "Sorry, I can't help with that.", "[1, 2, 3]", "{\"x\": "}) {
+            assertThat(PromptParser.splitByPlatform(answer, PLATFORMS)).as(String.valueOf(answer))
+                    .containsOnlyKeys(PLATFORMS).allSatisfy((platform, section) -> assertThat(section).isNull());
+        }
+    }
+}
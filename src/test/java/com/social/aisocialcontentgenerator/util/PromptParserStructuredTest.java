@@ -0,0 +1,66 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.social.aisocialcontentgenerator.dto.GenerateResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptParserStructuredTest {
+
+    private static final ObjectMapper M = new ObjectMapper();
+
+    private static final String ANSWER = """
+            {"captions": ["Sweat now, shine later", "Leg day"], "hashtags": ["#fitness", "#gym"],
+             "ideas": [{"title": "Before / after", "description": "Show progress", "imageIdea": "Split photo"}]}""";
+
+    @Test
+    void schemaMirrorsGenerateResponse() {
+        JsonNode schema = GeminiSchema.GENERATE_RESPONSE;
+
+        assertThat(schema.path("type").asText()).isEqualTo("OBJECT");
+        assertThat(schema.path("propertyOrdering")).extracting(JsonNode::asText).containsExactly("captions", "hashtags", "ideas");
+        assertThat(schema.path("required")).extracting(JsonNode::asText).containsExactly("captions", "hashtags", "ideas");
+        assertThat(schema.at("/properties/captions/items/type").asText()).isEqualTo("STRING");
+        JsonNode idea = schema.at("/properties/ideas/items");
+        assertThat(idea.path("type").asText()).isEqualTo("OBJECT");
+        assertThat(idea.path("required")).extracting(JsonNode::asText).containsExactly("title", "description", "imageIdea");
+
+        JsonNode multi = GeminiSchema.forPlatforms(List.of("instagram", "x"));
+        assertThat(multi.path("required")).extracting(JsonNode::asText).containsExactly("instagram", "x");
+        assertThat(multi.at("/properties/x")).isEqualTo(schema);
+    }
+
+    @Test
+    void schemaShapedAnswerBindsLikeTheHeuristicParse() throws Exception {
+        assertThat(M.writeValueAsString(PromptParser.parseStructured(ANSWER)))
+                .isEqualTo(M.writeValueAsString(PromptParser.parse(ANSWER)));
+
+        GenerateResponse partial = PromptParser.parseStructured("{\"captions\": [\"only\"], \"ideas\": [{\"title\": \"t\"}]}");
+        assertThat(partial.getHashtags()).isEmpty();
+        assertThat(partial.getIdeas().get(0).getDescription()).isEmpty();
+    }
+
+    @Test
+    void reportsWhichParsePathWon() {
+        assertThat(PromptParser.parseStructuredWithPath(ANSWER).path()).isEqualTo(PromptParser.ParsePath.STRUCTURED);
+        assertThat(PromptParser.parseWithPath(" " + ANSWER + "\n").path()).isEqualTo(PromptParser.ParsePath.JSON);
+        assertThat(PromptParser.parseStructuredWithPath("```json\n" + ANSWER + "\n```").path()).isEqualTo(PromptParser.ParsePath.FENCED_JSON);
+        assertThat(PromptParser.parseWithPath("Sure!\n" + ANSWER).path()).isEqualTo(PromptParser.ParsePath.FENCED_JSON);
+        assertThat(PromptParser.parseWithPath("[\"a\", \"b\"]").path()).isEqualTo(PromptParser.ParsePath.FULL_TEXT_JSON);
+        assertThat(PromptParser.parseWithPath("- plain caption #tag").path()).isEqualTo(PromptParser.ParsePath.PLAIN_TEXT);
+        assertThat(PromptParser.parseWithPath(null).path()).isEqualTo(PromptParser.ParsePath.EMPTY);
+    }
+
+    @Test
+    void anythingElseFallsBackToTheHeuristicParse() throws Exception {
+        for (String text : List.of("```json\n" + ANSWER + "\n```", "Sure!\n" + ANSWER, "{\"posts\": [\"p\"]}",
+                ANSWER + " trailing", "- plain caption #tag", "{broken")) {
+            assertThat(M.writeValueAsString(PromptParser.parseStructured(text))).as(text)
+                    .isEqualTo(M.writeValueAsString(PromptParser.parse(text)));
+        }
+    }
+}
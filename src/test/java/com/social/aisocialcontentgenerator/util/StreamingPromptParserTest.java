@@ -0,0 +1,109 @@
+package com.social.aisocialcontentgenerator.util;
+
+import com.social.aisocialcontentgenerator.dto.GenerationStreamEvent;
+import com.social.aisocialcontentgenerator.dto.PostIdea;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingPromptParserTest {
+
+    // strings with escaped quotes, backslashes, unicode escapes and JSON punctuation inside them
+    private static final String ANSWER = """
+            ```json
+            {
+              "captions": ["Say \\"yes\\" to leg day", "C:\\\\gym\\\\plan {v2} [final]", "Caf\\u00e9 run, then squats"],
+              "hashtags": ["#legday", "#\\"quoted\\""],
+              "ideas": [
+                {"title": "Form check", "description": "Side view, {braces} and [brackets]", "imageIdea": "Squat"},
+                {"title": "Nested", "description": "d", "imageIdea": "i",
+                 "meta": {"captions": ["not a caption"], "deeper": {"ideas": [{"title": "not an idea"}]}}}
+              ]
+            }
+            ```
+            Enjoy! {"captions": ["after the root object"]}""";
+
+    private static final List<String> EXPECTED = List.of(
+            "caption:Say \"yes\" to leg day",
+            "caption:C:\\gym\\plan {v2} [final]",
+            "caption:Café run, then squats",
+            "hashtag:#legday",
+            "hashtag:#\"quoted\"",
+            "idea:Form check|Side view, {braces} and [brackets]|Squat",
+            "idea:Nested|d|i");
+
+    @Test
+    void wholeAnswerInOneChunk() {
+        StreamingPromptParser parser = new StreamingPromptParser();
+
+        assertThat(describe(parser.feed(ANSWER))).containsExactlyElementsOf(EXPECTED);
+        assertThat(parser.text()).isEqualTo(ANSWER);
+    }
+
+    @Test
+    void oneCharacterPerChunkSplitsEveryStringAndEscape() {
+        StreamingPromptParser parser = new StreamingPromptParser();
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < ANSWER.length(); i++) {
+            events.addAll(describe(parser.feed(ANSWER.substring(i, i + 1))));
+        }
+
+        assertThat(events).containsExactlyElementsOf(EXPECTED);
+    }
+
+    @Test
+    void randomChunkBoundaries() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            StreamingPromptParser parser = new StreamingPromptParser();
+            List<String> events = new ArrayList<>();
+            int at = 0;
+            while (at < ANSWER.length()) {
+                int end = Math.min(ANSWER.length(), at + 1 + random.nextInt(12));
+                events.addAll(describe(parser.feed(ANSWER.substring(at, end))));
+                at = end;
+            }
+            assertThat(events).as("run %d", run).containsExactlyElementsOf(EXPECTED);
+        }
+    }
+
+    @Test
+    void eachElementIsEmittedByTheChunkThatCompletesIt() {
+        StreamingPromptParser parser = new StreamingPromptParser();
+
+        assertThat(parser.feed("Sure!\n```json\n{\"captions\": [\"one\", \"tw")).extracting(GenerationStreamEvent::getData)
+                .containsExactly("one");
+        assertThat(parser.feed("o\"], \"ideas\": [{\"title\": \"t\", \"description\": \"")).extracting(GenerationStreamEvent::getData)
+                .containsExactly("two");
+        assertThat(describe(parser.feed("d\"}]}"))).containsExactly("idea:t|d|");
+    }
+
+    @Test
+    void truncatedFinalChunkEmitsOnlyCompletedElements() {
+        String cut = "{\"captions\": [\"done\", \"half a capt";
+        StreamingPromptParser parser = new StreamingPromptParser();
+        assertThat(describe(parser.feed(cut))).containsExactly("caption:done");
+
+        parser = new StreamingPromptParser();
+        assertThat(describe(parser.feed("{\"ideas\": [{\"title\": \"whole\"}, {\"title\": \"half\", \"meta\": {\"a\": 1}")))
+                .containsExactly("idea:whole||");
+        assertThat(parser.text()).endsWith("{\"a\": 1}");
+    }
+
+    @Test
+    void noRootObjectMeansNoEvents() {
+        StreamingPromptParser parser = new StreamingPromptParser();
+
+        assertThat(parser.feed("Sorry, I can't help with \"captions\": [\"that\"].")).isEmpty();
+    }
+
+    private static List<String> describe(List<GenerationStreamEvent> events) {
+        return events.stream().map(e -> e.getType() + ":" + (e.getData() instanceof PostIdea idea
+                ? idea.getTitle() + "|" + idea.getDescription() + "|" + idea.getImageIdea()
+                : e.getData())).toList();
+    }
+}